@@ -5,11 +5,16 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
 
+import java.time.Duration;
+
 @Configuration
 public class DynamoDBconfig {
 
@@ -38,6 +43,33 @@ public class DynamoDBconfig {
                 .build();
     }
 
+    // Non-blocking client for request and ingestion paths; the blocking one is kept for table administration
+    @Bean
+    public DynamoDbAsyncClient dynamoDbAsyncClient(@Value("${dynamodb.async.max-concurrency:200}") int maxConcurrency,
+                                                   @Value("${dynamodb.async.max-pending-acquires:10000}") int maxPendingAcquires,
+                                                   @Value("${dynamodb.async.acquire-timeout-ms:5000}") long acquireTimeoutMs,
+                                                   @Value("${dynamodb.async.connect-timeout-ms:2000}") long connectTimeoutMs,
+                                                   @Value("${dynamodb.async.read-timeout-ms:10000}") long readTimeoutMs) {
+        return DynamoDbAsyncClient.builder()
+                .region(Region.of(region))
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(accessKey, secretKey)))
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(maxConcurrency)
+                        .maxPendingConnectionAcquires(maxPendingAcquires)
+                        .connectionAcquisitionTimeout(Duration.ofMillis(acquireTimeoutMs))
+                        .connectionTimeout(Duration.ofMillis(connectTimeoutMs))
+                        .readTimeout(Duration.ofMillis(readTimeoutMs)))
+                .build();
+    }
+
+    @Bean
+    public DynamoDbEnhancedAsyncClient dynamoDbEnhancedAsyncClient(DynamoDbAsyncClient dynamoDbAsyncClient) {
+        return DynamoDbEnhancedAsyncClient.builder()
+                .dynamoDbClient(dynamoDbAsyncClient)
+                .build();
+    }
+
     @Bean
     public CloudWatchClient cloudWatchClient() {
         return CloudWatchClient.builder()
@@ -56,6 +88,18 @@ public class DynamoDBconfig {
     @Value("${dynamodb.table.watchlist}")
     private String watchlistTableName;
 
+    @Value("${dynamodb.table.latest-prices}")
+    private String latestPricesTableName;
+
+    @Value("${dynamodb.table.price-history}")
+    private String priceHistoryTableName;
+
+    @Value("${dynamodb.table.candles}")
+    private String candlesTableName;
+
+    @Value("${dynamodb.table.coin-metadata}")
+    private String coinMetadataTableName;
+
     @Bean
     public String usersTableName() {
         return usersTableName;
@@ -70,4 +114,24 @@ public class DynamoDBconfig {
     public String watchlistTableName() {
         return watchlistTableName;
     }
+
+    @Bean
+    public String latestPricesTableName() {
+        return latestPricesTableName;
+    }
+
+    @Bean
+    public String priceHistoryTableName() {
+        return priceHistoryTableName;
+    }
+
+    @Bean
+    public String candlesTableName() {
+        return candlesTableName;
+    }
+
+    @Bean
+    public String coinMetadataTableName() {
+        return coinMetadataTableName;
+    }
 }
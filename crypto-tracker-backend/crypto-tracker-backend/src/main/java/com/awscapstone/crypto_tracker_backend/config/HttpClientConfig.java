@@ -0,0 +1,70 @@
+package com.awscapstone.crypto_tracker_backend.config;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${upstream.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${upstream.http.max-connections-per-route:20}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${upstream.http.connect-timeout-ms:3000}")
+    private long connectTimeoutMs;
+
+    @Value("${upstream.http.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+
+    @Value("${upstream.http.pool-timeout-ms:2000}")
+    private long poolTimeoutMs;
+
+    @Value("${upstream.http.idle-eviction-ms:60000}")
+    private long idleEvictionMs;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager upstreamConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setTimeToLive(TimeValue.ofMinutes(5))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .build())
+                .build();
+    }
+
+    // Content compression is on by default: requests advertise gzip/deflate and responses are decoded transparently
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient pooledHttpClient(PoolingHttpClientConnectionManager upstreamConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(upstreamConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictionMs))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate upstreamRestTemplate(CloseableHttpClient pooledHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(pooledHttpClient));
+    }
+}
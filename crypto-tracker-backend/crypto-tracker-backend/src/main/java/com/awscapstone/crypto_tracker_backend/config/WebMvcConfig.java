@@ -0,0 +1,20 @@
+package com.awscapstone.crypto_tracker_backend.config;
+
+import com.awscapstone.crypto_tracker_backend.service.ClientActivityTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final ClientActivityTracker clientActivityTracker;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(clientActivityTracker)
+                .addPathPatterns("/api/**", "/test/**");
+    }
+}
@@ -1,13 +1,30 @@
 package com.awscapstone.crypto_tracker_backend.controller;
 
+import com.awscapstone.crypto_tracker_backend.exception.UpstreamUnavailableException;
+import com.awscapstone.crypto_tracker_backend.model.Candle;
+import com.awscapstone.crypto_tracker_backend.model.CandleResolution;
+import com.awscapstone.crypto_tracker_backend.model.CoinDetail;
 import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
-import com.awscapstone.crypto_tracker_backend.service.CoinGeckoService;
+import com.awscapstone.crypto_tracker_backend.model.PricePoint;
+import com.awscapstone.crypto_tracker_backend.model.PriceQuote;
+import com.awscapstone.crypto_tracker_backend.model.PriceSnapshot;
+import com.awscapstone.crypto_tracker_backend.scheduler.PriceIngestor;
+import com.awscapstone.crypto_tracker_backend.scheduler.TieredRefreshPlanner;
+import com.awscapstone.crypto_tracker_backend.service.CandleService;
+import com.awscapstone.crypto_tracker_backend.service.CoinDemandTracker;
+import com.awscapstone.crypto_tracker_backend.service.CoinDetailService;
 import com.awscapstone.crypto_tracker_backend.service.DynamoDBService;
+import com.awscapstone.crypto_tracker_backend.service.LatestPriceService;
+import com.awscapstone.crypto_tracker_backend.service.PriceLookupService;
+import com.awscapstone.crypto_tracker_backend.service.PriceSnapshotService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,44 +35,67 @@ import java.util.Map;
 @Slf4j
 public class CryptoController {
 
-    private final CoinGeckoService coinGeckoService;
+    private final PriceSnapshotService priceSnapshotService;
     private final DynamoDBService dynamoDBService;
+    private final CoinDemandTracker coinDemandTracker;
+    private final TieredRefreshPlanner tieredRefreshPlanner;
+    private final CoinDetailService coinDetailService;
+    private final LatestPriceService latestPriceService;
+    private final PriceLookupService priceLookupService;
+    private final CandleService candleService;
+    private final PriceIngestor priceIngestor;
 
+    // view=quote drops names, images, volumes and sparklines from each entry
     @GetMapping("/prices")
-    public ResponseEntity<List<CryptoPrice>> getCryptoData() {
+    public ResponseEntity<List<?>> getCryptoData(@RequestParam(defaultValue = "full") String view) {
         log.info("Fetching cryptocurrency data");
+        boolean quotes = "quote".equalsIgnoreCase(view);
 
         try {
-            // First try to get stored data
-            List<CryptoPrice> storedData = dynamoDBService.getAllCryptoPrices();
-            
-            if (!storedData.isEmpty()) {
-                log.info("Returning {} stored cryptocurrencies", storedData.size());
-                return ResponseEntity.ok(storedData);
+            // First try the stored latest-price view
+            PriceSnapshot snapshot = latestPriceService.getLatest();
+
+            if (snapshot != null && !snapshot.prices().isEmpty()) {
+                log.info("Returning {} stored cryptocurrencies", snapshot.prices().size());
+                return ResponseEntity.ok()
+                        .header("X-Data-Age-Seconds", String.valueOf(snapshot.ageSeconds()))
+                        .body(quotes ? toQuotes(snapshot.prices()) : snapshot.prices());
             }
-            
-            // If no stored data, fetch fresh data
-            List<CryptoPrice> cryptoPrices = coinGeckoService.fetchCryptoData();
-            dynamoDBService.storeCryptoData(cryptoPrices);
-            return ResponseEntity.ok(cryptoPrices);
 
+            // If no stored data, serve the last known good snapshot (possibly stale) without blocking on upstream
+            snapshot = priceSnapshotService.getPrices();
+            return ResponseEntity.ok()
+                    .header("X-Data-Age-Seconds", String.valueOf(snapshot.ageSeconds()))
+                    .body(quotes ? toQuotes(snapshot.prices()) : snapshot.prices());
+
+        } catch (UpstreamUnavailableException e) {
+            log.warn("No snapshot available and upstream is unavailable: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             log.error("Error in /prices endpoint: {}", e.getMessage());
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    private static List<PriceQuote> toQuotes(List<CryptoPrice> prices) {
+        return prices.stream().map(PriceQuote::of).toList();
+    }
+
     @GetMapping("/prices/stored")
     public ResponseEntity<Map<String, Object>> getStoredCryptoData() {
         log.info("Fetching stored cryptocurrency data from DynamoDB");
 
         try {
-            List<CryptoPrice> cryptoPrices = dynamoDBService.getAllCryptoPrices();
+            PriceSnapshot snapshot = latestPriceService.getLatest();
+            List<CryptoPrice> cryptoPrices = snapshot != null ? snapshot.prices() : List.of();
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("data", cryptoPrices);
             response.put("count", cryptoPrices.size());
+            if (snapshot != null) {
+                response.put("ageSeconds", snapshot.ageSeconds());
+            }
             response.put("message", "Stored cryptocurrency data retrieved successfully");
 
             return ResponseEntity.ok(response);
@@ -74,14 +114,21 @@ public class CryptoController {
     @GetMapping("/price/{symbol}")
     public ResponseEntity<Map<String, Object>> getCryptoBySymbol(@PathVariable String symbol) {
         log.info("Fetching crypto data for symbol: {}", symbol);
+        coinDemandTracker.recordDemand(symbol);
 
         try {
-            CryptoPrice cryptoPrice = dynamoDBService.getCryptoPriceBySymbol(symbol);
+            List<CryptoPrice> found = priceLookupService.getPricesBySymbols(List.of(symbol));
+            CryptoPrice cryptoPrice = found.isEmpty() ? null : found.get(0);
 
             if (cryptoPrice != null) {
+                CoinDetail detail = coinDetailService.enrich(cryptoPrice);
+
                 Map<String, Object> response = new HashMap<>();
                 response.put("success", true);
                 response.put("data", cryptoPrice);
+                if (detail != null) {
+                    response.put("detail", detail);
+                }
                 response.put("message", "Cryptocurrency data retrieved successfully");
 
                 return ResponseEntity.ok(response);
@@ -104,21 +151,105 @@ public class CryptoController {
         }
     }
 
+    @GetMapping("/history/{symbol}")
+    public ResponseEntity<Map<String, Object>> getPriceHistory(@PathVariable String symbol,
+                                                               @RequestParam(defaultValue = "24") int hours) {
+        try {
+            Instant to = Instant.now();
+            Instant from = to.minus(Duration.ofHours(Math.max(1, Math.min(hours, 24 * 30))));
+            List<PricePoint> points = dynamoDBService.getPriceHistory(symbol, from, to);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("symbol", symbol.toUpperCase());
+            response.put("data", points);
+            response.put("count", points.size());
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("Error fetching price history for {}: {}", symbol, e.getMessage());
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to fetch price history");
+
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+
+    @GetMapping("/candles/{symbol}")
+    public ResponseEntity<Map<String, Object>> getCandles(@PathVariable String symbol,
+                                                          @RequestParam(defaultValue = "1h") String resolution,
+                                                          @RequestParam(defaultValue = "200") int limit) {
+        CandleResolution candleResolution;
+        try {
+            candleResolution = CandleResolution.fromLabel(resolution);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+
+        try {
+            long to = System.currentTimeMillis();
+            long from = to - candleResolution.width().toMillis() * Math.max(1, Math.min(limit, 1000));
+            List<Candle> candles = candleService.getCandles(symbol, candleResolution, from, to);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("symbol", symbol.toUpperCase());
+            response.put("resolution", candleResolution.label());
+            response.put("data", candles);
+            response.put("count", candles.size());
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("Error fetching candles for {}: {}", symbol, e.getMessage());
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to fetch candles");
+
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+
+    @GetMapping("/tiers")
+    public ResponseEntity<Map<String, Object>> getTierFreshness() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("enabled", tieredRefreshPlanner.isEnabled());
+        response.put("tiers", tieredRefreshPlanner.report());
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/refresh")
     public ResponseEntity<Map<String, Object>> refreshPrices() {
         log.info("Manually refreshing cryptocurrency prices");
 
         try {
-            List<CryptoPrice> cryptoPrices = coinGeckoService.fetchCryptoData();
-            dynamoDBService.storeCryptoData(cryptoPrices);
+            var result = priceIngestor.ingest();
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Prices updated successfully!");
-            response.put("count", cryptoPrices.size());
+            response.put("count", result.fetched().size());
 
             return ResponseEntity.ok(response);
 
+        } catch (UpstreamUnavailableException e) {
+            log.warn("Refresh rejected: {}", e.getMessage());
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Price provider is temporarily unavailable, serving last known prices");
+            PriceSnapshot snapshot = priceSnapshotService.getLastKnownGood();
+            if (snapshot != null) {
+                errorResponse.put("ageSeconds", snapshot.ageSeconds());
+            }
+
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
         } catch (Exception e) {
             log.error("Error refreshing prices: {}", e.getMessage());
 
@@ -1,10 +1,9 @@
 package com.awscapstone.crypto_tracker_backend.controller;
 
-import com.awscapstone.crypto_tracker_backend.service.CoinGeckoService;
+import com.awscapstone.crypto_tracker_backend.service.PriceSnapshotService;
 import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.awscapstone.crypto_tracker_backend.model.PriceSnapshot;
+import com.awscapstone.crypto_tracker_backend.model.Sparkline;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
@@ -17,16 +16,16 @@ import java.util.*;
 @Slf4j
 public class TestCryptoController {
 
-    private final CoinGeckoService coinGeckoService;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PriceSnapshotService priceSnapshotService;
 
     @GetMapping("/prices")
     public Map<String, Object> getPrices() {
         log.info("Fetching LIVE crypto prices from CoinGecko");
         
         try {
-            // Fetch real data from CoinGecko
-            var cryptoPrices = coinGeckoService.fetchCryptoData();
+            // Last known good snapshot; stale while the upstream is down or being revalidated
+            PriceSnapshot snapshot = priceSnapshotService.getPrices();
+            var cryptoPrices = snapshot.prices();
             
             // Convert to frontend-friendly format
             List<Map<String, Object>> formattedData = new ArrayList<>();
@@ -44,20 +43,9 @@ public class TestCryptoController {
                 item.put("circulating_supply", crypto.getCirculatingSupply());
                 item.put("ath", crypto.getAth());
                 
-                // Parse sparkline data
-                if (crypto.getSparkline7d() != null && !crypto.getSparkline7d().isEmpty()) {
-                    try {
-                        ArrayNode sparklineArray = (ArrayNode) objectMapper.readTree(crypto.getSparkline7d());
-                        Map<String, Object> sparklineObj = new HashMap<>();
-                        sparklineObj.put("price", sparklineArray);
-                        item.put("sparkline_in_7d", sparklineObj);
-                    } catch (Exception e) {
-                        log.warn("Failed to parse sparkline for {}", crypto.getCoinId());
-                        item.put("sparkline_in_7d", Map.of("price", new ArrayList<>()));
-                    }
-                } else {
-                    item.put("sparkline_in_7d", Map.of("price", new ArrayList<>()));
-                }
+                // Sparkline is serialized straight from its packed form
+                item.put("sparkline_in_7d", Map.of("price",
+                        crypto.getSparkline7d() != null ? crypto.getSparkline7d() : Sparkline.empty()));
                 
                 formattedData.add(item);
             }
@@ -67,6 +55,8 @@ public class TestCryptoController {
             response.put("message", "Live crypto prices fetched successfully from CoinGecko");
             response.put("data", formattedData);
             response.put("count", formattedData.size());
+            response.put("stale", priceSnapshotService.isStale(snapshot));
+            response.put("ageSeconds", snapshot.ageSeconds());
             return response;
             
         } catch (Exception e) {
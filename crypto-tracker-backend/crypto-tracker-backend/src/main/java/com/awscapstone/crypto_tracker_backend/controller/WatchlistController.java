@@ -1,8 +1,8 @@
 package com.awscapstone.crypto_tracker_backend.controller;
 
 import com.awscapstone.crypto_tracker_backend.dto.WatchlistRequest;
-import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
-import com.awscapstone.crypto_tracker_backend.service.DynamoDBService;
+import com.awscapstone.crypto_tracker_backend.service.CoinDemandTracker;
+import com.awscapstone.crypto_tracker_backend.service.PriceLookupService;
 import com.awscapstone.crypto_tracker_backend.service.WatchlistService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -10,7 +10,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,20 +21,19 @@ import java.util.Map;
 public class WatchlistController {
 
     private final WatchlistService watchlistService;
-    private final DynamoDBService dynamoDBService;
+    private final PriceLookupService priceLookupService;
+    private final CoinDemandTracker coinDemandTracker;
 
+    // view=quote returns price-only entries and keeps fallback reads to the quote attributes
     @GetMapping("/{userId}")
-    public ResponseEntity<Map<String, Object>> getWatchlist(@PathVariable String userId) {
+    public ResponseEntity<Map<String, Object>> getWatchlist(@PathVariable String userId,
+                                                            @RequestParam(defaultValue = "full") String view) {
         try {
             List<String> symbols = watchlistService.getUserWatchlist(userId);
-            List<CryptoPrice> cryptoDetails = new ArrayList<>();
-
-            for (String symbol : symbols) {
-                CryptoPrice crypto = dynamoDBService.getCryptoPriceBySymbol(symbol);
-                if (crypto != null) {
-                    cryptoDetails.add(crypto);
-                }
-            }
+            symbols.forEach(coinDemandTracker::recordDemand);
+            List<?> cryptoDetails = "quote".equalsIgnoreCase(view)
+                    ? priceLookupService.getQuotesBySymbols(symbols)
+                    : priceLookupService.getPricesBySymbols(symbols);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
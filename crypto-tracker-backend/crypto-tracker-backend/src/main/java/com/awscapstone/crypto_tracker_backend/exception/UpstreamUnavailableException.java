@@ -0,0 +1,17 @@
+package com.awscapstone.crypto_tracker_backend.exception;
+
+import java.io.Serial;
+
+public class UpstreamUnavailableException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+
+    public UpstreamUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,25 @@
+package com.awscapstone.crypto_tracker_backend.model;
+
+/**
+ * Outcome of a write spread over many single-item requests: items that
+ * made it, items that were still throttled or rejected after retries,
+ * retried requests, and items deliberately left out before writing.
+ */
+public record BatchWriteResult(int written, int failed, int retries, int skipped) {
+
+    public static final BatchWriteResult EMPTY = new BatchWriteResult(0, 0, 0, 0);
+
+    public BatchWriteResult(int written, int failed, int retries) {
+        this(written, failed, retries, 0);
+    }
+
+    // Every item is one request, and every retry one more
+    public int requests() {
+        return written + failed + retries;
+    }
+
+    public BatchWriteResult plus(BatchWriteResult other) {
+        return new BatchWriteResult(written + other.written, failed + other.failed, retries + other.retries,
+                skipped + other.skipped);
+    }
+}
@@ -0,0 +1,28 @@
+package com.awscapstone.crypto_tracker_backend.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Open/high/low/close of one coin over one candle period. Volume is the
+ * provider's rolling 24h volume as of the last tick in the period, since
+ * per-interval traded volume is not available from the markets feed.
+ */
+public record Candle(String symbol, CandleResolution resolution, long start,
+                     BigDecimal open, BigDecimal high, BigDecimal low, BigDecimal close,
+                     BigDecimal volume, int ticks) {
+
+    public Candle with(BigDecimal price, BigDecimal latestVolume) {
+        return new Candle(symbol, resolution, start, open,
+                price.compareTo(high) > 0 ? price : high,
+                price.compareTo(low) < 0 ? price : low,
+                price, latestVolume, ticks + 1);
+    }
+
+    // Folds an earlier stored part of the same period into this one
+    public Candle mergeEarlier(Candle earlier) {
+        return new Candle(symbol, resolution, start, earlier.open,
+                earlier.high.compareTo(high) > 0 ? earlier.high : high,
+                earlier.low.compareTo(low) < 0 ? earlier.low : low,
+                close, volume, ticks + earlier.ticks);
+    }
+}
@@ -0,0 +1,44 @@
+package com.awscapstone.crypto_tracker_backend.model;
+
+import java.time.Duration;
+
+/**
+ * Candle widths kept by the rollup pipeline.
+ */
+public enum CandleResolution {
+
+    ONE_MINUTE("1m", Duration.ofMinutes(1)),
+    FIVE_MINUTES("5m", Duration.ofMinutes(5)),
+    ONE_HOUR("1h", Duration.ofHours(1)),
+    ONE_DAY("1d", Duration.ofDays(1));
+
+    private final String label;
+    private final Duration width;
+
+    CandleResolution(String label, Duration width) {
+        this.label = label;
+        this.width = width;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public Duration width() {
+        return width;
+    }
+
+    // Start (epoch millis, UTC aligned) of the candle containing the given time
+    public long startOf(long timestampMs) {
+        return timestampMs - Math.floorMod(timestampMs, width.toMillis());
+    }
+
+    public static CandleResolution fromLabel(String label) {
+        for (CandleResolution resolution : values()) {
+            if (resolution.label.equalsIgnoreCase(label)) {
+                return resolution;
+            }
+        }
+        throw new IllegalArgumentException("Unknown candle resolution: " + label);
+    }
+}
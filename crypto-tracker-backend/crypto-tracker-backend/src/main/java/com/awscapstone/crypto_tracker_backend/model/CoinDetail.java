@@ -0,0 +1,22 @@
+package com.awscapstone.crypto_tracker_backend.model;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class CoinDetail {
+    private String coinId;
+    private BigDecimal ath;
+    private BigDecimal athChangePercentage;
+    private LocalDateTime athDate;
+    private BigDecimal atl;
+    private BigDecimal atlChangePercentage;
+    private LocalDateTime atlDate;
+    private BigDecimal high24h;
+    private BigDecimal low24h;
+    private String description;
+    private String homepage;
+    private LocalDateTime fetchedAt;
+}
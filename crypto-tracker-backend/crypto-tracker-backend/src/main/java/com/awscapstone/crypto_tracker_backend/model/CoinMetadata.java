@@ -0,0 +1,12 @@
+package com.awscapstone.crypto_tracker_backend.model;
+
+/**
+ * Static or slow-changing facts about a coin, stored once rather than with
+ * every price.
+ */
+public record CoinMetadata(String coinId, String symbol, String name, String image) {
+
+    public static CoinMetadata of(CryptoPrice cryptoPrice) {
+        return new CoinMetadata(cryptoPrice.getCoinId(), cryptoPrice.getSymbol(), cryptoPrice.getName(), cryptoPrice.getImage());
+    }
+}
@@ -22,6 +22,6 @@ public class CryptoPrice {
     private BigDecimal maxSupply;
     private BigDecimal ath;
     private BigDecimal athChangePercentage;
-    private String sparkline7d;
+    private Sparkline sparkline7d;
     private LocalDateTime lastUpdated;
 }
@@ -0,0 +1,9 @@
+package com.awscapstone.crypto_tracker_backend.model;
+
+import java.math.BigDecimal;
+
+/**
+ * One stored tick of a coin's price history.
+ */
+public record PricePoint(long timestamp, BigDecimal price, BigDecimal totalVolume, BigDecimal marketCap) {
+}
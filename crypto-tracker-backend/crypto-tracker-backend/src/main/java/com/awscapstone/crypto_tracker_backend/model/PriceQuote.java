@@ -0,0 +1,19 @@
+package com.awscapstone.crypto_tracker_backend.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Price-only view of a coin for callers that do not need names, images,
+ * volumes or sparklines.
+ */
+public record PriceQuote(String coinId, String symbol, BigDecimal currentPrice,
+                         BigDecimal priceChangePercentage1h, BigDecimal priceChangePercentage24h,
+                         BigDecimal priceChangePercentage7d, Integer marketCapRank, LocalDateTime lastUpdated) {
+
+    public static PriceQuote of(CryptoPrice cryptoPrice) {
+        return new PriceQuote(cryptoPrice.getCoinId(), cryptoPrice.getSymbol(), cryptoPrice.getCurrentPrice(),
+                cryptoPrice.getPriceChangePercentage1h(), cryptoPrice.getPriceChangePercentage24h(),
+                cryptoPrice.getPriceChangePercentage7d(), cryptoPrice.getMarketCapRank(), cryptoPrice.getLastUpdated());
+    }
+}
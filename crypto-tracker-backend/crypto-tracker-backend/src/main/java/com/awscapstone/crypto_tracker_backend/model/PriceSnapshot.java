@@ -0,0 +1,19 @@
+package com.awscapstone.crypto_tracker_backend.model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Last known good market snapshot and when it was fetched.
+ */
+public record PriceSnapshot(List<CryptoPrice> prices, Instant fetchedAt) {
+
+    public long ageSeconds() {
+        return Duration.between(fetchedAt, Instant.now()).toSeconds();
+    }
+
+    public boolean isOlderThan(Duration maxAge) {
+        return Duration.between(fetchedAt, Instant.now()).compareTo(maxAge) > 0;
+    }
+}
@@ -0,0 +1,219 @@
+package com.awscapstone.crypto_tracker_backend.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serial;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Packed 7-day sparkline. Values are kept encoded and only decoded when
+ * read, and are serialized to JSON as a plain number array.
+ * <p>
+ * Layout: one format byte, a varint count, then either raw float32 values
+ * or (quantized) a double base, a double step and zigzag-varint deltas of
+ * the quantized levels.
+ */
+@JsonSerialize(using = Sparkline.Serializer.class)
+public final class Sparkline {
+
+    private static final byte FORMAT_FLOAT32 = 1;
+    private static final byte FORMAT_QUANTIZED_DELTA = 2;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final Sparkline EMPTY = encode(new double[0], 0, 0);
+
+    private final byte[] bytes;
+
+    private Sparkline(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public static Sparkline empty() {
+        return EMPTY;
+    }
+
+    public static Sparkline fromBytes(byte[] bytes) {
+        return bytes == null || bytes.length == 0 ? EMPTY : new Sparkline(bytes);
+    }
+
+    /**
+     * @param quantizationBits 0 stores float32 values, 1..24 stores deltas
+     *                         between levels of a {@code 2^bits}-step grid
+     */
+    public static Sparkline encode(double[] values, int length, int quantizationBits) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + length * 2);
+
+        if (quantizationBits <= 0 || length == 0) {
+            out.write(FORMAT_FLOAT32);
+            writeVarint(out, length);
+            ByteBuffer buffer = ByteBuffer.allocate(length * 4);
+            for (int i = 0; i < length; i++) {
+                buffer.putFloat((float) values[i]);
+            }
+            out.writeBytes(buffer.array());
+            return new Sparkline(out.toByteArray());
+        }
+
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < length; i++) {
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+        }
+        long levels = (1L << Math.min(quantizationBits, 24)) - 1;
+        double step = max > min ? (max - min) / levels : 1;
+
+        out.write(FORMAT_QUANTIZED_DELTA);
+        writeVarint(out, length);
+        out.writeBytes(ByteBuffer.allocate(16).putDouble(min).putDouble(step).array());
+        long previous = 0;
+        for (int i = 0; i < length; i++) {
+            long level = Math.round((values[i] - min) / step);
+            long delta = level - previous;
+            writeVarint(out, (delta << 1) ^ (delta >> 63));
+            previous = level;
+        }
+        return new Sparkline(out.toByteArray());
+    }
+
+    // Legacy rows stored the sparkline as JSON text
+    public static Sparkline fromJson(String json, int quantizationBits) {
+        if (json == null || json.isBlank()) {
+            return EMPTY;
+        }
+        double[] values = new double[192];
+        int length = 0;
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return EMPTY;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                if (token.isNumeric()) {
+                    if (length == values.length) {
+                        values = Arrays.copyOf(values, length * 2);
+                    }
+                    values[length++] = parser.getDoubleValue();
+                }
+            }
+        } catch (IOException e) {
+            return EMPTY;
+        }
+        return encode(values, length, quantizationBits);
+    }
+
+    public byte[] toBytes() {
+        return bytes;
+    }
+
+    public int size() {
+        return (int) readVarint(ByteBuffer.wrap(bytes, 1, bytes.length - 1));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void forEach(DoubleConsumer consumer) {
+        try {
+            decode(consumer::accept);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void decode(ValueSink consumer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte format = buffer.get();
+        int length = (int) readVarint(buffer);
+
+        if (format == FORMAT_FLOAT32) {
+            for (int i = 0; i < length; i++) {
+                consumer.accept(buffer.getFloat());
+            }
+            return;
+        }
+
+        double min = buffer.getDouble();
+        double step = buffer.getDouble();
+        long level = 0;
+        for (int i = 0; i < length; i++) {
+            long zigzag = readVarint(buffer);
+            level += (zigzag >>> 1) ^ -(zigzag & 1);
+            consumer.accept(min + level * step);
+        }
+    }
+
+    public double[] toArray() {
+        double[] values = new double[size()];
+        int[] index = {0};
+        forEach(value -> values[index[0]++] = value);
+        return values;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Sparkline other && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return "Sparkline(" + size() + " points, " + bytes.length + " bytes)";
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer buffer) {
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return result;
+    }
+
+    private interface ValueSink {
+        void accept(double value) throws IOException;
+    }
+
+    // Decodes straight into the generator without materializing an array
+    public static class Serializer extends StdSerializer<Sparkline> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        public Serializer() {
+            super(Sparkline.class);
+        }
+
+        @Override
+        public void serialize(Sparkline sparkline, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray();
+            sparkline.decode(value -> gen.writeNumber((float) value));
+            gen.writeEndArray();
+        }
+    }
+}
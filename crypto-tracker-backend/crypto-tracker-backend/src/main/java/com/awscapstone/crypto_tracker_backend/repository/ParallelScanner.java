@@ -0,0 +1,204 @@
+package com.awscapstone.crypto_tracker_backend.repository;
+
+import com.awscapstone.crypto_tracker_backend.service.CloudWatchService;
+import com.awscapstone.crypto_tracker_backend.service.Futures;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Reads a whole table as N segments scanned concurrently, following
+ * pagination to the end. Items are streamed to the consumer page by page:
+ * each segment asks for its next page only once the consumer has taken
+ * the current one, so at most one page per segment is held in memory.
+ * <p>
+ * The consumer is never called concurrently, and never on the SDK's
+ * completion threads: pages are handed to an executor (virtual threads
+ * unless the caller passes one). A consumer may therefore block, e.g. to
+ * pace writes; that holds back its own scan and nothing else. Meant for
+ * exports, backfills and rebuilds; request paths should use keyed reads
+ * instead.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ParallelScanner {
+
+    public record ScanStats(String table, int segments, int segmentsDone, long pages, long items,
+                            double consumedCapacity, long elapsedMs) {
+    }
+
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+    private final CloudWatchService cloudWatchService;
+
+    @Value("${dynamodb.scan.segments:4}")
+    private int defaultSegments;
+
+    @Value("${dynamodb.scan.progress-log-ms:10000}")
+    private long progressLogMs;
+
+    private final Map<Long, Progress> running = new ConcurrentHashMap<>();
+    private final AtomicLong scanIds = new AtomicLong();
+    private final ExecutorService consumerExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public CompletableFuture<ScanStats> scanAsync(ScanRequest request, Consumer<Map<String, AttributeValue>> consumer) {
+        return scanAsync(request, defaultSegments, consumer);
+    }
+
+    // For consumers that block, so they wait on their own threads rather than the shared ones
+    public CompletableFuture<ScanStats> scanAsync(ScanRequest request, Executor executor,
+                                                  Consumer<Map<String, AttributeValue>> consumer) {
+        return scanAsync(request, defaultSegments, executor, consumer);
+    }
+
+    public CompletableFuture<ScanStats> scanAsync(ScanRequest request, int segments,
+                                                  Consumer<Map<String, AttributeValue>> consumer) {
+        return scanAsync(request, segments, consumerExecutor, consumer);
+    }
+
+    public CompletableFuture<ScanStats> scanAsync(ScanRequest request, int segments, Executor executor,
+                                                  Consumer<Map<String, AttributeValue>> consumer) {
+        int totalSegments = Math.max(1, segments);
+        long id = scanIds.incrementAndGet();
+        Progress progress = new Progress(request.tableName(), totalSegments, System.currentTimeMillis());
+        running.put(id, progress);
+
+        List<CompletableFuture<Void>> segmentScans = new ArrayList<>(totalSegments);
+        for (int segment = 0; segment < totalSegments; segment++) {
+            segmentScans.add(scanSegment(request, segment, totalSegments, null, progress, executor, consumer));
+        }
+
+        return CompletableFuture.allOf(segmentScans.toArray(CompletableFuture[]::new))
+                .handle((ignored, error) -> {
+                    running.remove(id);
+                    ScanStats stats = progress.stats();
+                    if (error != null) {
+                        log.error("Scan of {} failed after {} items: {}", stats.table(), stats.items(), Futures.unwrap(error).getMessage());
+                        throw new RuntimeException("Failed to scan " + stats.table(), Futures.unwrap(error));
+                    }
+                    log.info("Scanned {} items from {} in {} pages over {} segments ({} ms, {} capacity units)",
+                            stats.items(), stats.table(), stats.pages(), stats.segments(), stats.elapsedMs(), stats.consumedCapacity());
+                    cloudWatchService.publishMetric("ScanItems", stats.items(), "Count");
+                    cloudWatchService.publishMetric("ScanPages", stats.pages(), "Count");
+                    cloudWatchService.publishMetric("ScanConsumedCapacity", stats.consumedCapacity(), "Count");
+                    cloudWatchService.publishMetric("ScanDuration", stats.elapsedMs(), "Milliseconds");
+                    return stats;
+                });
+    }
+
+    public ScanStats scan(ScanRequest request, Consumer<Map<String, AttributeValue>> consumer) {
+        return Futures.await(scanAsync(request, consumer));
+    }
+
+    // Progress of the scans still in flight
+    public List<ScanStats> activeScans() {
+        return running.values().stream().map(Progress::stats).toList();
+    }
+
+    private CompletableFuture<Void> scanSegment(ScanRequest request, int segment, int totalSegments,
+                                                Map<String, AttributeValue> startKey, Progress progress,
+                                                Executor executor, Consumer<Map<String, AttributeValue>> consumer) {
+        ScanRequest.Builder page = request.toBuilder()
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                .exclusiveStartKey(startKey);
+        if (totalSegments > 1) {
+            page.segment(segment).totalSegments(totalSegments);
+        }
+
+        return dynamoDbAsyncClient.scan(page.build()).thenComposeAsync(response -> {
+            // Another segment failed; stop here rather than reading the rest for nothing
+            if (progress.failed.get()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            // A lock rather than a monitor, so a consumer blocking here does not pin its virtual thread
+            progress.consumerLock.lock();
+            try {
+                response.items().forEach(consumer);
+            } catch (RuntimeException e) {
+                progress.failed.set(true);
+                throw e;
+            } finally {
+                progress.consumerLock.unlock();
+            }
+
+            progress.pages.incrementAndGet();
+            progress.items.addAndGet(response.items().size());
+            if (response.consumedCapacity() != null && response.consumedCapacity().capacityUnits() != null) {
+                progress.capacity.add(response.consumedCapacity().capacityUnits());
+            }
+            progress.maybeLog(progressLogMs);
+
+            if (response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()) {
+                return scanSegment(request, segment, totalSegments, response.lastEvaluatedKey(), progress, executor, consumer);
+            }
+            progress.segmentsDone.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }, executor).whenComplete((ignored, error) -> {
+            if (error != null) {
+                progress.failed.set(true);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        consumerExecutor.shutdownNow();
+    }
+
+    private static class Progress {
+
+        private final String table;
+        private final int segments;
+        private final long startedAt;
+        private final AtomicInteger segmentsDone = new AtomicInteger();
+        private final AtomicLong pages = new AtomicLong();
+        private final AtomicLong items = new AtomicLong();
+        private final DoubleAdder capacity = new DoubleAdder();
+        private final AtomicBoolean failed = new AtomicBoolean();
+        private final ReentrantLock consumerLock = new ReentrantLock();
+        private final AtomicLong lastLogged;
+
+        Progress(String table, int segments, long startedAt) {
+            this.table = table;
+            this.segments = segments;
+            this.startedAt = startedAt;
+            this.lastLogged = new AtomicLong(startedAt);
+        }
+
+        ScanStats stats() {
+            return new ScanStats(table, segments, segmentsDone.get(), pages.get(), items.get(),
+                    capacity.sum(), System.currentTimeMillis() - startedAt);
+        }
+
+        void maybeLog(long intervalMs) {
+            long now = System.currentTimeMillis();
+            long last = lastLogged.get();
+            if (now - last >= intervalMs && lastLogged.compareAndSet(last, now)) {
+                ScanStats stats = stats();
+                log.info("Scanning {}: {} items in {} pages, {}/{} segments done, {} capacity units",
+                        table, stats.items(), stats.pages(), stats.segmentsDone(), segments, stats.consumedCapacity());
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.awscapstone.crypto_tracker_backend.repository;
+
+import com.awscapstone.crypto_tracker_backend.model.CoinMetadata;
+import com.awscapstone.crypto_tracker_backend.model.User;
+import com.awscapstone.crypto_tracker_backend.model.Watchlist;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticImmutableTableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primarySortKey;
+
+/**
+ * Table schemas for the entity tables, built once with explicit getters and
+ * setters instead of bean introspection. They are the single source of
+ * attribute and key names: repositories map items with them and table
+ * initialization creates tables from their keys.
+ */
+public final class TableSchemas {
+
+    public static final String WATCHLIST_USER_ID = "user_id";
+    public static final String WATCHLIST_SYMBOL = "crypto_symbol";
+
+    public static final TableSchema<User> USER = StaticTableSchema.builder(User.class)
+            .newItemSupplier(User::new)
+            .addAttribute(String.class, a -> a.name("username")
+                    .getter(User::getUsername).setter(User::setUsername).tags(primaryPartitionKey()))
+            .addAttribute(String.class, a -> a.name("email").getter(User::getEmail).setter(User::setEmail))
+            .addAttribute(String.class, a -> a.name("password").getter(User::getPassword).setter(User::setPassword))
+            .addAttribute(String.class, a -> a.name("role").getter(User::getRole).setter(User::setRole))
+            .addAttribute(Long.class, a -> a.name("createdAt").getter(User::getCreatedAt).setter(User::setCreatedAt))
+            .build();
+
+    public static final TableSchema<Watchlist> WATCHLIST = StaticTableSchema.builder(Watchlist.class)
+            .newItemSupplier(Watchlist::new)
+            .addAttribute(String.class, a -> a.name(WATCHLIST_USER_ID)
+                    .getter(Watchlist::getUserId).setter(Watchlist::setUserId).tags(primaryPartitionKey()))
+            .addAttribute(String.class, a -> a.name(WATCHLIST_SYMBOL)
+                    .getter(Watchlist::getSymbol).setter(Watchlist::setSymbol).tags(primarySortKey()))
+            .addAttribute(Long.class, a -> a.name("added_at").getter(Watchlist::getAddedAt).setter(Watchlist::setAddedAt))
+            .build();
+
+    public static final TableSchema<CoinMetadata> COIN_METADATA = StaticImmutableTableSchema
+            .builder(CoinMetadata.class, CoinMetadataBuilder.class)
+            .newItemBuilder(CoinMetadataBuilder::new, CoinMetadataBuilder::build)
+            .addAttribute(String.class, a -> a.name("coinId")
+                    .getter(CoinMetadata::coinId).setter(CoinMetadataBuilder::coinId).tags(primaryPartitionKey()))
+            .addAttribute(String.class, a -> a.name("symbol").getter(CoinMetadata::symbol).setter(CoinMetadataBuilder::symbol))
+            .addAttribute(String.class, a -> a.name("name").getter(CoinMetadata::name).setter(CoinMetadataBuilder::name))
+            .addAttribute(String.class, a -> a.name("image").getter(CoinMetadata::image).setter(CoinMetadataBuilder::image))
+            .build();
+
+    private TableSchemas() {
+    }
+
+    private static final class CoinMetadataBuilder {
+
+        private String coinId;
+        private String symbol;
+        private String name;
+        private String image;
+
+        void coinId(String coinId) {
+            this.coinId = coinId;
+        }
+
+        void symbol(String symbol) {
+            this.symbol = symbol;
+        }
+
+        void name(String name) {
+            this.name = name;
+        }
+
+        void image(String image) {
+            this.image = image;
+        }
+
+        CoinMetadata build() {
+            return new CoinMetadata(coinId, symbol, name, image);
+        }
+    }
+}
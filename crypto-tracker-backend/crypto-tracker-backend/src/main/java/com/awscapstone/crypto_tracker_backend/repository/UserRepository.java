@@ -4,41 +4,39 @@ import com.awscapstone.crypto_tracker_backend.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Repository
 public class UserRepository {
 
-    private final DynamoDbTable<User> userTable;
+    private final DynamoDbAsyncTable<User> userTable;
 
     @Autowired
-    public UserRepository(DynamoDbEnhancedClient enhancedClient, 
+    public UserRepository(DynamoDbEnhancedAsyncClient enhancedClient,
                          @Qualifier("usersTableName") String tableName) {
-        this.userTable = enhancedClient.table(tableName, TableSchema.fromBean(User.class));
+        this.userTable = enhancedClient.table(tableName, TableSchemas.USER);
     }
 
-    public User save(User user) {
-        userTable.putItem(user);
-        return user;
+    public CompletableFuture<User> save(User user) {
+        return userTable.putItem(user).thenApply(ignored -> user);
     }
 
-    public Optional<User> findByUsername(String username) {
+    public CompletableFuture<Optional<User>> findByUsername(String username) {
         Key key = Key.builder().partitionValue(username).build();
-        User user = userTable.getItem(key);
-        return Optional.ofNullable(user);
+        return userTable.getItem(key).thenApply(Optional::ofNullable);
     }
 
-    public void deleteByUsername(String username) {
+    public CompletableFuture<Void> deleteByUsername(String username) {
         Key key = Key.builder().partitionValue(username).build();
-        userTable.deleteItem(key);
+        return userTable.deleteItem(key).thenApply(ignored -> null);
     }
 
-    public boolean existsByUsername(String username) {
-        return findByUsername(username).isPresent();
+    public CompletableFuture<Boolean> existsByUsername(String username) {
+        return findByUsername(username).thenApply(Optional::isPresent);
     }
 }
\ No newline at end of file
@@ -4,60 +4,102 @@ import com.awscapstone.crypto_tracker_backend.model.Watchlist;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Repository
 public class WatchlistRepository {
 
-    private final DynamoDbTable<Watchlist> watchlistTable;
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+    private final DynamoDbAsyncTable<Watchlist> watchlistTable;
+    private final ParallelScanner parallelScanner;
 
     @Autowired
-    public WatchlistRepository(DynamoDbEnhancedClient enhancedClient,
-                              @Qualifier("watchlistTableName") String tableName) {
-        this.watchlistTable = enhancedClient.table(tableName, TableSchema.fromBean(Watchlist.class));
+    public WatchlistRepository(DynamoDbAsyncClient dynamoDbAsyncClient,
+                              DynamoDbEnhancedAsyncClient enhancedClient,
+                              @Qualifier("watchlistTableName") String tableName,
+                              ParallelScanner parallelScanner) {
+        this.dynamoDbAsyncClient = dynamoDbAsyncClient;
+        this.watchlistTable = enhancedClient.table(tableName, TableSchemas.WATCHLIST);
+        this.parallelScanner = parallelScanner;
     }
 
-    public Watchlist save(Watchlist watchlist) {
-        watchlistTable.putItem(watchlist);
-        return watchlist;
+    public CompletableFuture<Watchlist> save(Watchlist watchlist) {
+        return watchlistTable.putItem(watchlist).thenApply(ignored -> watchlist);
     }
 
-    public List<Watchlist> findByUsername(String username) {
+    public CompletableFuture<List<Watchlist>> findByUserId(String userId) {
         QueryConditional queryConditional = QueryConditional
-                .keyEqualTo(Key.builder().partitionValue(username).build());
-        
+                .keyEqualTo(Key.builder().partitionValue(userId).build());
+
+        List<Watchlist> items = new ArrayList<>();
         return watchlistTable.query(queryConditional)
                 .items()
-                .stream()
-                .collect(Collectors.toList());
+                .subscribe(items::add)
+                .thenApply(ignored -> items);
     }
 
-    public Optional<Watchlist> findByUsernameAndCoinId(String username, String coinId) {
-        Key key = Key.builder()
-                .partitionValue(username)
-                .sortValue(coinId)
+    // Only the symbols, across all pages
+    public CompletableFuture<List<String>> findSymbolsByUserId(String userId) {
+        QueryEnhancedRequest request = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(userId).build()))
+                .attributesToProject(TableSchemas.WATCHLIST_SYMBOL)
                 .build();
-        Watchlist watchlist = watchlistTable.getItem(key);
-        return Optional.ofNullable(watchlist);
+
+        List<String> symbols = new ArrayList<>();
+        return watchlistTable.query(request)
+                .items()
+                .subscribe(item -> symbols.add(item.getSymbol()))
+                .thenApply(ignored -> symbols);
     }
 
-    public void deleteByUsernameAndCoinId(String username, String coinId) {
-        Key key = Key.builder()
-                .partitionValue(username)
-                .sortValue(coinId)
+    // Every symbol watched by any user, with only the symbol projected
+    public CompletableFuture<Set<String>> findAllSymbols() {
+        ScanRequest scanRequest = ScanRequest.builder()
+                .tableName(watchlistTable.tableName())
+                .projectionExpression(TableSchemas.WATCHLIST_SYMBOL)
                 .build();
-        watchlistTable.deleteItem(key);
+
+        Set<String> symbols = new HashSet<>();
+        return parallelScanner.scanAsync(scanRequest, item -> {
+            String symbol = watchlistTable.tableSchema().mapToItem(item).getSymbol();
+            if (symbol != null) {
+                symbols.add(symbol.toUpperCase());
+            }
+        }).thenApply(stats -> symbols);
     }
 
-    public boolean existsByUsernameAndCoinId(String username, String coinId) {
-        return findByUsernameAndCoinId(username, coinId).isPresent();
+    // Only the hash key comes back, so the check never transfers the rest of the item
+    public CompletableFuture<Boolean> existsByUserIdAndSymbol(String userId, String symbol) {
+        GetItemRequest request = GetItemRequest.builder()
+                .tableName(watchlistTable.tableName())
+                .key(key(userId, symbol).primaryKeyMap(TableSchemas.WATCHLIST))
+                .projectionExpression(TableSchemas.WATCHLIST_USER_ID)
+                .build();
+
+        return dynamoDbAsyncClient.getItem(request).thenApply(response -> response.hasItem() && !response.item().isEmpty());
+    }
+
+    public CompletableFuture<Void> deleteByUserIdAndSymbol(String userId, String symbol) {
+        return watchlistTable.deleteItem(key(userId, symbol)).thenApply(ignored -> null);
+    }
+
+    private static Key key(String userId, String symbol) {
+        return Key.builder()
+                .partitionValue(userId)
+                .sortValue(symbol.toUpperCase())
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,6 @@
 package com.awscapstone.crypto_tracker_backend.runner;
 
-import com.awscapstone.crypto_tracker_backend.service.CoinGeckoService;
-import com.awscapstone.crypto_tracker_backend.service.DynamoDBService;
+import com.awscapstone.crypto_tracker_backend.scheduler.PriceIngestor;
 import com.awscapstone.crypto_tracker_backend.service.TableInitializationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,8 +13,7 @@ import org.springframework.stereotype.Component;
 @Slf4j
 public class AppStartupRunner implements ApplicationRunner {
 
-    private final CoinGeckoService coinGeckoService;
-    private final DynamoDBService dynamoDBService;
+    private final PriceIngestor priceIngestor;
     private final TableInitializationService tableInitializationService;
 
     @Override
@@ -32,10 +30,9 @@ public class AppStartupRunner implements ApplicationRunner {
             
             // Fetch initial data on startup
             log.info("Fetching initial cryptocurrency data...");
-            var initialData = coinGeckoService.fetchCryptoData();
-            dynamoDBService.storeCryptoData(initialData);
+            var initialData = priceIngestor.ingest();
 
-            log.info("Initial data loaded: {} cryptocurrencies", initialData.size());
+            log.info("Initial data loaded: {} cryptocurrencies", initialData.fetched().size());
 
         } catch (Exception e) {
             log.warn("Could not fetch initial data: {}", e.getMessage());
@@ -0,0 +1,93 @@
+package com.awscapstone.crypto_tracker_backend.scheduler;
+
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.service.AlertService;
+import com.awscapstone.crypto_tracker_backend.service.ClientActivityTracker;
+import com.awscapstone.crypto_tracker_backend.service.UpstreamRateLimiter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Picks the delay before the next price tick in adaptive scheduler mode.
+ * Polls faster when the market is moving or a price sits close to an
+ * alert threshold, slower when nothing changes or no client is connected,
+ * and backs off as the shared upstream quota runs low.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AdaptivePollingPolicy {
+
+    private final AlertService alertService;
+    private final ClientActivityTracker clientActivityTracker;
+    private final UpstreamRateLimiter rateLimiter;
+
+    @Value("${scheduler.fixed-rate:30000}")
+    private long baseIntervalMs;
+
+    @Value("${scheduler.adaptive.min-interval-ms:10000}")
+    private long minIntervalMs;
+
+    @Value("${scheduler.adaptive.max-interval-ms:300000}")
+    private long maxIntervalMs;
+
+    @Value("${scheduler.adaptive.idle-after-ms:600000}")
+    private long idleAfterMs;
+
+    @Value("${scheduler.adaptive.volatility-threshold-percent:2.0}")
+    private double volatilityThresholdPercent;
+
+    @Value("${scheduler.adaptive.alert-proximity-percent:1.0}")
+    private double alertProximityPercent;
+
+    private volatile double lastVolatilityPercent;
+    private volatile double lastChangedRatio = 1.0;
+
+    public void recordTick(List<CryptoPrice> cryptoPrices, int changedCount) {
+        if (cryptoPrices.isEmpty()) {
+            return;
+        }
+        double totalMove = 0;
+        for (CryptoPrice cryptoPrice : cryptoPrices) {
+            BigDecimal change1h = cryptoPrice.getPriceChangePercentage1h();
+            if (change1h != null) {
+                totalMove += Math.abs(change1h.doubleValue());
+            }
+        }
+        lastVolatilityPercent = totalMove / cryptoPrices.size();
+        lastChangedRatio = (double) changedCount / cryptoPrices.size();
+    }
+
+    public Duration nextInterval() {
+        double factor = 1.0;
+
+        boolean volatile1h = lastVolatilityPercent >= volatilityThresholdPercent;
+        boolean nearAlert = alertService.nearestAlertDistance() * 100 <= alertProximityPercent;
+        if (volatile1h || nearAlert) {
+            factor = (double) minIntervalMs / baseIntervalMs;
+        } else if (lastChangedRatio == 0) {
+            factor *= 2;
+        }
+
+        if (clientActivityTracker.isIdleFor(Duration.ofMillis(idleAfterMs)) && !nearAlert) {
+            factor *= 4;
+        }
+
+        // Stretch up to 3x as the token bucket drains below half
+        double remainingQuota = rateLimiter.availableTokens() / rateLimiter.getCapacity();
+        if (remainingQuota < 0.5) {
+            factor *= 1 + (0.5 - remainingQuota) * 4;
+        }
+
+        long intervalMs = Math.max(minIntervalMs, Math.min(maxIntervalMs, Math.round(baseIntervalMs * factor)));
+        log.debug("Next price tick in {} ms (volatility={}%, changed={}, quota={})",
+                intervalMs, lastVolatilityPercent, lastChangedRatio, remainingQuota);
+        return Duration.ofMillis(intervalMs);
+    }
+}
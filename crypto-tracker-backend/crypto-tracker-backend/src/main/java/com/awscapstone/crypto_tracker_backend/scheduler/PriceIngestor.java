@@ -0,0 +1,177 @@
+package com.awscapstone.crypto_tracker_backend.scheduler;
+
+import com.awscapstone.crypto_tracker_backend.model.BatchWriteResult;
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.model.PriceQuote;
+import com.awscapstone.crypto_tracker_backend.service.AlertService;
+import com.awscapstone.crypto_tracker_backend.service.CandleService;
+import com.awscapstone.crypto_tracker_backend.service.CloudWatchService;
+import com.awscapstone.crypto_tracker_backend.service.CoinMetadataService;
+import com.awscapstone.crypto_tracker_backend.service.DynamoDBService;
+import com.awscapstone.crypto_tracker_backend.service.LatestPriceService;
+import com.awscapstone.crypto_tracker_backend.service.PriceChangeDetector;
+import com.awscapstone.crypto_tracker_backend.service.PriceSnapshotService;
+import com.awscapstone.crypto_tracker_backend.service.UpstreamRecorder;
+import com.awscapstone.crypto_tracker_backend.service.WatchedCoinFetcher;
+import com.awscapstone.crypto_tracker_backend.source.PriceSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One ingest pass: fetch, drop unchanged coins, then write history, candles,
+ * metadata and the latest-price view and check alerts. Shared by the
+ * scheduler, the manual refresh endpoint and startup so every path merges
+ * into the snapshot and marks what it wrote the same way.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PriceIngestor {
+
+    public record Result(List<CryptoPrice> fetched, List<CryptoPrice> changed, BatchWriteResult writeResult) {
+
+        public int unchanged() {
+            return fetched.size() - changed.size();
+        }
+    }
+
+    private final PriceSnapshotService priceSnapshotService;
+    private final DynamoDBService dynamoDBService;
+    private final CloudWatchService cloudWatchService;
+    private final AlertService alertService;
+    private final PriceChangeDetector priceChangeDetector;
+    private final TieredRefreshPlanner tieredRefreshPlanner;
+    private final WatchedCoinFetcher watchedCoinFetcher;
+    private final LatestPriceService latestPriceService;
+    private final CandleService candleService;
+    private final CoinMetadataService coinMetadataService;
+    private final UpstreamRecorder upstreamRecorder;
+
+    // A manual refresh can overlap a tick; change detection and marking assume one pass at a time
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Throws UpstreamUnavailableException while the upstream circuit is open
+    public Result ingest() {
+        lock.lock();
+        try {
+            var cryptoPrices = new ArrayList<CryptoPrice>();
+            upstreamRecorder.beginTick(System.currentTimeMillis());
+            try {
+                // Merged rather than replaced, so coins outside this fetch keep their last price
+                cryptoPrices.addAll(tieredRefreshPlanner.isEnabled()
+                        ? refreshDueTiers()
+                        : priceSnapshotService.refreshPartial(PriceSource::fetchPrices));
+                cryptoPrices.addAll(fetchWatchedCoins());
+            } finally {
+                upstreamRecorder.endTick();
+            }
+
+            // Skip coins CoinGecko has not refreshed since the last pass
+            var changedPrices = priceChangeDetector.filterChanged(cryptoPrices);
+            var writeResult = dynamoDBService.storeCryptoData(changedPrices);
+            candleService.record(changedPrices, System.currentTimeMillis());
+            if (!changedPrices.isEmpty()) {
+                coinMetadataService.updateChanged(changedPrices);
+                latestPriceService.publish(priceSnapshotService.getLastKnownGood());
+            }
+
+            // Check price alerts
+            changedPrices.stream().map(PriceQuote::of).forEach(alertService::checkPriceAlerts);
+            // After a partial write failure, leave everything unmarked so the next pass writes it again
+            if (writeResult.failed() == 0) {
+                priceChangeDetector.markIngested(changedPrices);
+            }
+
+            var result = new Result(cryptoPrices, changedPrices, writeResult);
+            publishMetrics(result);
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void publishMetrics(Result result) {
+        BatchWriteResult writeResult = result.writeResult();
+        cloudWatchService.publishMetric("CryptocurrenciesUpdated", result.changed().size(), "Count");
+        cloudWatchService.publishMetric("CryptocurrenciesUnchanged", result.unchanged(), "Count");
+        cloudWatchService.publishMetric("StoreRequests", writeResult.requests(), "Count");
+        cloudWatchService.publishMetric("StoreFailedItems", writeResult.failed(), "Count");
+        cloudWatchService.publishMetric("StoreRetries", writeResult.retries(), "Count");
+        cloudWatchService.publishMetric("StoreSharedSymbolSkips", writeResult.skipped(), "Count");
+        if (!result.fetched().isEmpty()) {
+            cloudWatchService.publishMetric("ChangeDetectionSkipRatio", 100.0 * result.unchanged() / result.fetched().size(), "Percent");
+        }
+    }
+
+    // Watched coins are best effort: a failed lookup should not lose the main page
+    private List<CryptoPrice> fetchWatchedCoins() {
+        try {
+            return watchedCoinFetcher.fetchMissing();
+        } catch (Exception e) {
+            log.warn("Failed to fetch watched coins outside the polled pages: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private List<CryptoPrice> refreshDueTiers() {
+        TieredRefreshPlanner.Plan plan = tieredRefreshPlanner.plan(Instant.now());
+        if (plan.isEmpty()) {
+            return List.of();
+        }
+
+        // Filled from inside the request, which the hedged fetcher may run against both sources
+        Set<TieredRefreshPlanner.RankRange> refreshedPages = ConcurrentHashMap.newKeySet();
+        AtomicBoolean promotedRefreshed = new AtomicBoolean(plan.promotedIds().isEmpty());
+        var cryptoPrices = priceSnapshotService.refreshPartial(source -> {
+            // Ranks can shift between requests, so keep one entry per coin
+            Map<String, CryptoPrice> fetched = new LinkedHashMap<>();
+            RuntimeException lastError = null;
+            for (TieredRefreshPlanner.RankRange range : plan.rankRanges()) {
+                try {
+                    source.fetchRankRange(range.fromRank(), range.toRank()).forEach(price -> fetched.putIfAbsent(price.getCoinId(), price));
+                    refreshedPages.add(range);
+                } catch (RuntimeException e) {
+                    // A failed page stays due and is retried on the next tick
+                    log.warn("Failed to refresh ranks {}-{}: {}", range.fromRank(), range.toRank(), e.getMessage());
+                    lastError = e;
+                }
+            }
+            if (!plan.promotedIds().isEmpty()) {
+                try {
+                    source.fetchByIds(plan.promotedIds()).forEach(price -> fetched.putIfAbsent(price.getCoinId(), price));
+                    promotedRefreshed.set(true);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to refresh promoted coins: {}", e.getMessage());
+                    lastError = e;
+                }
+            }
+            if (fetched.isEmpty() && lastError != null) {
+                throw lastError;
+            }
+            return List.copyOf(fetched.values());
+        });
+        tieredRefreshPlanner.markRefreshed(plan, refreshedPages, promotedRefreshed.get(), Instant.now());
+
+        log.info("Refreshed {} of {} planned rank pages with {} promoted coins",
+                refreshedPages.size(), plan.rankRanges().size(), plan.promotedIds().size());
+        tieredRefreshPlanner.tierAges(Instant.now()).forEach((tier, age) ->
+                cloudWatchService.publishMetric(switch (tier) {
+                    case HOT -> "HotTierAgeSeconds";
+                    case WARM -> "WarmTierAgeSeconds";
+                    case COLD -> "ColdTierAgeSeconds";
+                }, age, "Seconds"));
+        cloudWatchService.publishMetric("PromotedCoins", plan.promotedIds().size(), "Count");
+        return cryptoPrices;
+    }
+}
@@ -1,26 +1,54 @@
 package com.awscapstone.crypto_tracker_backend.scheduler;
 
-import com.awscapstone.crypto_tracker_backend.service.AlertService;
+import com.awscapstone.crypto_tracker_backend.exception.UpstreamUnavailableException;
 import com.awscapstone.crypto_tracker_backend.service.CloudWatchService;
-import com.awscapstone.crypto_tracker_backend.service.CoinGeckoService;
-import com.awscapstone.crypto_tracker_backend.service.DynamoDBService;
+import com.awscapstone.crypto_tracker_backend.service.RetentionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.Instant;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
-public class PriceScheduler {
+public class PriceScheduler implements SchedulingConfigurer {
 
-    private final CoinGeckoService coinGeckoService;
-    private final DynamoDBService dynamoDBService;
+    private final PriceIngestor priceIngestor;
     private final CloudWatchService cloudWatchService;
-    private final AlertService alertService;
+    private final AdaptivePollingPolicy pollingPolicy;
+    private final RetentionService retentionService;
+
+    @Value("${scheduler.mode:fixed}")
+    private String mode;
+
+    @Value("${scheduler.fixed-rate:30000}")
+    private long fixedRate;
+
+    // Fetch prices every 30 seconds, or on the adaptive policy's interval
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        if ("adaptive".equalsIgnoreCase(mode)) {
+            log.info("Price scheduler running in adaptive mode");
+            registrar.addTriggerTask(this::fetchAndStoreCryptoPrices, context -> {
+                Instant lastCompletion = context.lastCompletion();
+                if (lastCompletion == null) {
+                    return Instant.now();
+                }
+                Duration interval = pollingPolicy.nextInterval();
+                cloudWatchService.publishMetric("PollingInterval", interval.toMillis(), "Milliseconds");
+                return lastCompletion.plus(interval);
+            });
+        } else {
+            registrar.addFixedRateTask(this::fetchAndStoreCryptoPrices, Duration.ofMillis(fixedRate));
+        }
+    }
 
-    // Fetch prices every 30 seconds
-    @Scheduled(fixedRate = 30000)
     public void fetchAndStoreCryptoPrices() {
         long startTime = System.currentTimeMillis();
         boolean success = false;
@@ -28,19 +56,18 @@ public class PriceScheduler {
         try {
             log.info("Scheduled task: Fetching cryptocurrency prices...");
 
-            var cryptoPrices = coinGeckoService.fetchCryptoData();
-            dynamoDBService.storeCryptoData(cryptoPrices);
-            
-            // Check price alerts
-            cryptoPrices.forEach(alertService::checkPriceAlerts);
+            var result = priceIngestor.ingest();
+            pollingPolicy.recordTick(result.fetched(), result.changed().size());
             
             success = true;
-            log.info("Scheduled task completed: Fetched {} cryptocurrencies", cryptoPrices.size());
+            log.info("Scheduled task completed: Fetched {} cryptocurrencies, {} unchanged", result.fetched().size(), result.unchanged());
             
             // Publish metrics
             cloudWatchService.publishMetric("ScheduledUpdateCount", 1, "Count");
-            cloudWatchService.publishMetric("CryptocurrenciesUpdated", cryptoPrices.size(), "Count");
 
+        } catch (UpstreamUnavailableException e) {
+            log.warn("Skipping scheduled price fetch: {}", e.getMessage());
+            cloudWatchService.publishMetric("ScheduledUpdateSkipped", 1, "Count");
         } catch (Exception e) {
             log.error("Error in scheduled price fetch: {}", e.getMessage());
             cloudWatchService.publishMetric("ScheduledUpdateErrors", 1, "Count");
@@ -51,10 +78,13 @@ public class PriceScheduler {
         }
     }
 
-    // Clean old data every hour (optional)
-    @Scheduled(fixedRate = 3600000)
+    // Clean old data every hour; off the scheduler thread so a long purge cannot delay price ticks
+    @Scheduled(fixedRateString = "${retention.purge.interval-ms:3600000}", initialDelayString = "${retention.purge.initial-delay-ms:300000}")
     public void cleanOldData() {
+        if (!retentionService.isEnabled()) {
+            return;
+        }
         log.info("Cleaning old data...");
-        // Implement data cleanup logic if needed
+        Thread.ofVirtual().name("retention-purge").start(retentionService::purge);
     }
 }
@@ -0,0 +1,238 @@
+package com.awscapstone.crypto_tracker_backend.scheduler;
+
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.model.PriceSnapshot;
+import com.awscapstone.crypto_tracker_backend.service.CoinDemandTracker;
+import com.awscapstone.crypto_tracker_backend.service.PriceSnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Splits the coin universe into hot, warm and cold tiers by market cap
+ * rank, each with its own refresh cadence. Coins that are requested or
+ * watched often are promoted into a faster tier and fall back as their
+ * demand score decays.
+ * <p>
+ * Each tier is refreshed a page of ranks at a time, and every page keeps
+ * its own clock. A tick plans at most a fixed number of due pages, most
+ * urgent tier and stalest page first, so a cold start or a failed page
+ * is caught up over the following ticks instead of in one burst.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TieredRefreshPlanner {
+
+    public enum Tier { HOT, WARM, COLD }
+
+    public record RankRange(int fromRank, int toRank) {
+    }
+
+    // promotedTiers are the tiers whose promoted coins are refreshed with this plan
+    public record Plan(List<RankRange> rankRanges, Set<Tier> promotedTiers, Set<String> promotedIds) {
+
+        public boolean isEmpty() {
+            return rankRanges.isEmpty() && promotedIds.isEmpty();
+        }
+    }
+
+    private final CoinDemandTracker coinDemandTracker;
+    private final PriceSnapshotService priceSnapshotService;
+
+    @Value("${scheduler.tiers.enabled:false}")
+    private boolean enabled;
+
+    @Value("${scheduler.tiers.hot-size:100}")
+    private int hotSize;
+
+    @Value("${scheduler.tiers.hot-interval-ms:30000}")
+    private long hotIntervalMs;
+
+    @Value("${scheduler.tiers.warm-size:1000}")
+    private int warmSize;
+
+    @Value("${scheduler.tiers.warm-interval-ms:300000}")
+    private long warmIntervalMs;
+
+    @Value("${scheduler.tiers.cold-size:5000}")
+    private int coldSize;
+
+    @Value("${scheduler.tiers.cold-interval-ms:3600000}")
+    private long coldIntervalMs;
+
+    @Value("${scheduler.tiers.page-size:250}")
+    private int pageSize;
+
+    @Value("${scheduler.tiers.max-pages-per-tick:10}")
+    private int maxPagesPerTick;
+
+    @Value("${scheduler.tiers.promote-hot-score:20}")
+    private double promoteHotScore;
+
+    @Value("${scheduler.tiers.promote-warm-score:3}")
+    private double promoteWarmScore;
+
+    private final Map<RankRange, Instant> pageRefreshed = new LinkedHashMap<>();
+    private final Map<Tier, Instant> promotedRefreshed = new EnumMap<>(Tier.class);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized Plan plan(Instant now) {
+        List<RankRange> duePages = new ArrayList<>();
+        for (Tier tier : Tier.values()) {
+            List<RankRange> tierPages = new ArrayList<>();
+            for (RankRange page : pages(tier)) {
+                if (isDue(pageRefreshed.get(page), tier, now)) {
+                    tierPages.add(page);
+                }
+            }
+            // Pages never refreshed come first, then the stalest
+            tierPages.sort(Comparator.comparing(page -> pageRefreshed.getOrDefault(page, Instant.MIN)));
+            duePages.addAll(tierPages);
+        }
+        List<RankRange> rankRanges = maxPagesPerTick > 0 && duePages.size() > maxPagesPerTick
+                ? List.copyOf(duePages.subList(0, maxPagesPerTick))
+                : duePages;
+
+        Set<Tier> promotedTiers = EnumSet.noneOf(Tier.class);
+        for (Tier tier : Tier.values()) {
+            if (isDue(promotedRefreshed.get(tier), tier, now)) {
+                promotedTiers.add(tier);
+            }
+        }
+
+        Set<String> promotedIds = new LinkedHashSet<>();
+        PriceSnapshot snapshot = priceSnapshotService.getLastKnownGood();
+        if (snapshot != null) {
+            for (CryptoPrice cryptoPrice : snapshot.prices()) {
+                Tier rankTier = tierForRank(cryptoPrice.getMarketCapRank());
+                Tier effective = effectiveTier(cryptoPrice);
+                if (effective != rankTier && promotedTiers.contains(effective) && !covers(rankRanges, cryptoPrice.getMarketCapRank())) {
+                    promotedIds.add(cryptoPrice.getCoinId());
+                }
+            }
+        }
+
+        log.debug("Tier plan: {} of {} due pages, ranges={}, promoted={}",
+                rankRanges.size(), duePages.size(), rankRanges, promotedIds.size());
+        return new Plan(rankRanges, promotedTiers, promotedIds);
+    }
+
+    // Only the pages that were actually fetched move forward; the rest stay due for the next tick
+    public synchronized void markRefreshed(Plan plan, Collection<RankRange> refreshedPages, boolean promotedRefreshed, Instant at) {
+        refreshedPages.forEach(page -> pageRefreshed.put(page, at));
+        if (promotedRefreshed) {
+            plan.promotedTiers().forEach(tier -> this.promotedRefreshed.put(tier, at));
+        }
+    }
+
+    // Seconds since the stalest page of each tier was refreshed, or -1 if one never was
+    public synchronized Map<Tier, Long> tierAges(Instant now) {
+        Map<Tier, Long> ages = new EnumMap<>(Tier.class);
+        for (Tier tier : Tier.values()) {
+            long age = 0;
+            for (RankRange page : pages(tier)) {
+                Instant last = pageRefreshed.get(page);
+                if (last == null) {
+                    age = -1;
+                    break;
+                }
+                age = Math.max(age, Duration.between(last, now).toSeconds());
+            }
+            ages.put(tier, age);
+        }
+        return ages;
+    }
+
+    public Map<String, Object> report() {
+        Map<Tier, Integer> counts = new EnumMap<>(Tier.class);
+        PriceSnapshot snapshot = priceSnapshotService.getLastKnownGood();
+        if (snapshot != null) {
+            for (CryptoPrice cryptoPrice : snapshot.prices()) {
+                counts.merge(effectiveTier(cryptoPrice), 1, Integer::sum);
+            }
+        }
+
+        Map<Tier, Long> ages = tierAges(Instant.now());
+        Map<String, Object> report = new LinkedHashMap<>();
+        for (Tier tier : Tier.values()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("ranks", rankRange(tier));
+            entry.put("intervalSeconds", interval(tier) / 1000);
+            entry.put("coins", counts.getOrDefault(tier, 0));
+            entry.put("ageSeconds", ages.get(tier));
+            report.put(tier.name().toLowerCase(), entry);
+        }
+        return report;
+    }
+
+    // Allow some scheduler jitter so a page due "just about now" is not pushed a whole tick back
+    private boolean isDue(Instant last, Tier tier, Instant now) {
+        return last == null || Duration.between(last, now).toMillis() >= interval(tier) * 9 / 10;
+    }
+
+    private List<RankRange> pages(Tier tier) {
+        RankRange range = rankRange(tier);
+        int size = Math.max(1, pageSize);
+        List<RankRange> pages = new ArrayList<>();
+        for (int from = range.fromRank(); from <= range.toRank(); from += size) {
+            pages.add(new RankRange(from, Math.min(range.toRank(), from + size - 1)));
+        }
+        return pages;
+    }
+
+    private static boolean covers(List<RankRange> rankRanges, Integer rank) {
+        return rank != null && rank > 0
+                && rankRanges.stream().anyMatch(range -> rank >= range.fromRank() && rank <= range.toRank());
+    }
+
+    private Tier effectiveTier(CryptoPrice cryptoPrice) {
+        Tier rankTier = tierForRank(cryptoPrice.getMarketCapRank());
+        double score = coinDemandTracker.getScore(cryptoPrice.getSymbol());
+        Tier demandTier = score >= promoteHotScore ? Tier.HOT : score >= promoteWarmScore ? Tier.WARM : Tier.COLD;
+        return demandTier.ordinal() < rankTier.ordinal() ? demandTier : rankTier;
+    }
+
+    private Tier tierForRank(Integer rank) {
+        if (rank != null && rank > 0 && rank <= hotSize) {
+            return Tier.HOT;
+        }
+        if (rank != null && rank > 0 && rank <= hotSize + warmSize) {
+            return Tier.WARM;
+        }
+        return Tier.COLD;
+    }
+
+    private RankRange rankRange(Tier tier) {
+        return switch (tier) {
+            case HOT -> new RankRange(1, hotSize);
+            case WARM -> new RankRange(hotSize + 1, hotSize + warmSize);
+            case COLD -> new RankRange(hotSize + warmSize + 1, hotSize + warmSize + coldSize);
+        };
+    }
+
+    private long interval(Tier tier) {
+        return switch (tier) {
+            case HOT -> hotIntervalMs;
+            case WARM -> warmIntervalMs;
+            case COLD -> coldIntervalMs;
+        };
+    }
+}
@@ -1,6 +1,6 @@
 package com.awscapstone.crypto_tracker_backend.service;
 
-import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.model.PriceQuote;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -28,9 +28,10 @@ public class AlertService {
         log.info("Price alert removed for {}", symbol);
     }
 
-    public void checkPriceAlerts(CryptoPrice cryptoPrice) {
-        String symbol = cryptoPrice.getSymbol().toLowerCase();
-        BigDecimal currentPrice = cryptoPrice.getCurrentPrice();
+    // Alerts only look at the price, so callers pass the quote view
+    public void checkPriceAlerts(PriceQuote quote) {
+        String symbol = quote.symbol().toLowerCase();
+        BigDecimal currentPrice = quote.currentPrice();
         
         Double threshold = priceThresholds.get(symbol);
         BigDecimal lastPrice = lastPrices.get(symbol);
@@ -40,9 +41,9 @@ public class AlertService {
             
             // Check if price crossed threshold
             if (currentPriceDouble <= threshold && (lastPrice == null || lastPrice.doubleValue() > threshold)) {
-                triggerPriceAlert(cryptoPrice, threshold, "BELOW");
+                triggerPriceAlert(quote, threshold, "BELOW");
             } else if (currentPriceDouble >= threshold && (lastPrice == null || lastPrice.doubleValue() < threshold)) {
-                triggerPriceAlert(cryptoPrice, threshold, "ABOVE");
+                triggerPriceAlert(quote, threshold, "ABOVE");
             }
         }
         
@@ -51,12 +52,12 @@ public class AlertService {
         }
     }
 
-    private void triggerPriceAlert(CryptoPrice cryptoPrice, double threshold, String direction) {
+    private void triggerPriceAlert(PriceQuote quote, double threshold, String direction) {
         String alertMessage = String.format(
             "PRICE ALERT: %s is now %s $%.2f (threshold: $%.2f)",
-            cryptoPrice.getSymbol().toUpperCase(),
+            quote.symbol().toUpperCase(),
             direction,
-            cryptoPrice.getCurrentPrice().doubleValue(),
+            quote.currentPrice().doubleValue(),
             threshold
         );
         
@@ -74,6 +75,19 @@ public class AlertService {
         log.info("NOTIFICATION: {}", message);
     }
 
+    // Smallest relative gap between a watched price and its alert threshold, or infinity if none are set
+    public double nearestAlertDistance() {
+        double nearest = Double.POSITIVE_INFINITY;
+        for (Map.Entry<String, Double> alert : priceThresholds.entrySet()) {
+            BigDecimal lastPrice = lastPrices.get(alert.getKey());
+            if (lastPrice != null && lastPrice.signum() > 0) {
+                double price = lastPrice.doubleValue();
+                nearest = Math.min(nearest, Math.abs(price - alert.getValue()) / price);
+            }
+        }
+        return nearest;
+    }
+
     public Map<String, Double> getAllAlerts() {
         return Map.copyOf(priceThresholds);
     }
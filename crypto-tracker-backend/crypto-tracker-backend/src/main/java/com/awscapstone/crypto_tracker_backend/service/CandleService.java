@@ -0,0 +1,301 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.model.Candle;
+import com.awscapstone.crypto_tracker_backend.model.CandleResolution;
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rolls ticks up into 1m/5m/1h/1d candles as they are ingested. Open
+ * candles live in memory; a candle is written to the candles table once
+ * its period is over, and open candles are checkpointed periodically so
+ * a restart loses at most one checkpoint interval.
+ * <p>
+ * After a restart the first candle of each series covers only part of
+ * its period, so before it is first written it is merged with whatever
+ * the previous process stored for that period.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CandleService {
+
+    private static final int MAX_BATCH_WRITE_ITEMS = 25;
+
+    private record SeriesKey(String symbol, CandleResolution resolution) {
+    }
+
+    private record PeriodKey(SeriesKey series, long start) {
+    }
+
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+    private final RetentionService retentionService;
+    private final CloudWatchService cloudWatchService;
+    private final WriteRateController writeRateController;
+
+    @Qualifier("candlesTableName")
+    private final String candlesTableName;
+
+    @Value("${candles.enabled:true}")
+    private boolean enabled;
+
+    @Value("${candles.checkpoint-ms:300000}")
+    private long checkpointMs;
+
+    private final long startedAt = System.currentTimeMillis();
+    private final Map<SeriesKey, Candle> open = new ConcurrentHashMap<>();
+    // Candles that began before this process did and have not yet been merged with the stored part
+    private final Set<PeriodKey> partial = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<Candle> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private volatile long lastCheckpoint = System.currentTimeMillis();
+
+    // Folds one tick per coin into every resolution and writes whatever has completed
+    public void record(List<CryptoPrice> cryptoPrices, long timestamp) {
+        if (!enabled) {
+            return;
+        }
+        for (CryptoPrice crypto : cryptoPrices) {
+            if (crypto.getSymbol() == null || crypto.getCurrentPrice() == null) {
+                continue;
+            }
+            BigDecimal volume = crypto.getTotalVolume() != null ? crypto.getTotalVolume() : BigDecimal.ZERO;
+            for (CandleResolution resolution : CandleResolution.values()) {
+                fold(new SeriesKey(crypto.getSymbol().toUpperCase(), resolution), crypto.getCurrentPrice(), volume, timestamp);
+            }
+        }
+
+        boolean checkpoint = timestamp - lastCheckpoint >= checkpointMs;
+        if (!completed.isEmpty() || checkpoint) {
+            flushAsync(checkpoint);
+        }
+    }
+
+    private void fold(SeriesKey key, BigDecimal price, BigDecimal volume, long timestamp) {
+        long start = key.resolution().startOf(timestamp);
+        open.compute(key, (ignored, candle) -> {
+            if (candle != null && candle.start() == start) {
+                return candle.with(price, volume);
+            }
+            if (candle != null) {
+                completed.add(candle);
+            }
+            if (start < startedAt) {
+                partial.add(new PeriodKey(key, start));
+            }
+            return new Candle(key.symbol(), key.resolution(), start, price, price, price, price, volume, 1);
+        });
+    }
+
+    private void flushAsync(boolean checkpoint) {
+        // One flush at a time; anything completed meanwhile is picked up by the next tick
+        if (!flushing.compareAndSet(false, true)) {
+            return;
+        }
+
+        List<Candle> toWrite = new ArrayList<>();
+        for (Candle candle; (candle = completed.poll()) != null; ) {
+            toWrite.add(candle);
+        }
+        if (checkpoint) {
+            toWrite.addAll(open.values());
+            lastCheckpoint = System.currentTimeMillis();
+        }
+
+        mergePartial(toWrite)
+                .thenCompose(this::write)
+                .whenComplete((failed, error) -> {
+                    flushing.set(false);
+                    int failedCount = error != null ? toWrite.size() : failed.size();
+                    if (error != null) {
+                        log.warn("Candle flush failed: {}", Futures.unwrap(error).getMessage());
+                        requeueCompleted(toWrite);
+                    } else {
+                        requeueCompleted(failed);
+                    }
+                    cloudWatchService.publishMetric("CandlesFlushed", toWrite.size() - failedCount, "Count");
+                    cloudWatchService.publishMetric("CandleFlushFailures", failedCount, "Count");
+                    cloudWatchService.publishMetric("CandlesOpen", open.size(), "Count");
+                });
+    }
+
+    // Only finished candles go back in the queue; open ones are written again by the next checkpoint anyway
+    private void requeueCompleted(List<Candle> candles) {
+        for (Candle candle : candles) {
+            Candle current = open.get(new SeriesKey(candle.symbol(), candle.resolution()));
+            if (current == null || current.start() != candle.start()) {
+                completed.add(candle);
+            }
+        }
+    }
+
+    private CompletableFuture<List<Candle>> mergePartial(List<Candle> candles) {
+        List<CompletableFuture<Candle>> merged = new ArrayList<>(candles.size());
+        for (Candle candle : candles) {
+            SeriesKey series = new SeriesKey(candle.symbol(), candle.resolution());
+            PeriodKey period = new PeriodKey(series, candle.start());
+            if (!partial.contains(period)) {
+                merged.add(CompletableFuture.completedFuture(candle));
+                continue;
+            }
+            merged.add(dynamoDbAsyncClient.getItem(GetItemRequest.builder()
+                            .tableName(candlesTableName)
+                            .key(key(candle.symbol(), candle.resolution(), candle.start()))
+                            .build())
+                    .thenApply(response -> {
+                        partial.remove(period);
+                        if (!response.hasItem() || response.item().isEmpty()) {
+                            return candle;
+                        }
+                        Candle stored = fromItem(response.item());
+                        // Fold the stored part into the live candle too, so later writes keep it without merging again
+                        open.computeIfPresent(series, (ignored, current) ->
+                                current.start() == candle.start() ? current.mergeEarlier(stored) : current);
+                        return candle.mergeEarlier(stored);
+                    }));
+        }
+        return CompletableFuture.allOf(merged.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> merged.stream().map(CompletableFuture::join).toList());
+    }
+
+    // Returns the candles that could not be written; how many batches run at once is up to the write-rate controller
+    private CompletableFuture<List<Candle>> write(List<Candle> candles) {
+        List<Candle> failed = new ArrayList<>();
+        List<CompletableFuture<Void>> batchWrites = new ArrayList<>();
+        for (int from = 0; from < candles.size(); from += MAX_BATCH_WRITE_ITEMS) {
+            List<Candle> batch = candles.subList(from, Math.min(candles.size(), from + MAX_BATCH_WRITE_ITEMS));
+            Map<String, List<WriteRequest>> requestItems = Map.of(candlesTableName, batch.stream()
+                    .map(candle -> WriteRequest.builder().putRequest(PutRequest.builder().item(toItem(candle)).build()).build())
+                    .toList());
+            batchWrites.add(writeBatch(requestItems, 1)
+                    .handle((unprocessed, error) -> {
+                        if (error != null || !unprocessed.isEmpty()) {
+                            synchronized (failed) {
+                                failed.addAll(error != null ? batch : unprocessed);
+                            }
+                        }
+                        return null;
+                    }));
+        }
+        return CompletableFuture.allOf(batchWrites.toArray(CompletableFuture[]::new)).thenApply(ignored -> failed);
+    }
+
+    // Returns the candles still unprocessed after the last attempt
+    private CompletableFuture<List<Candle>> writeBatch(Map<String, List<WriteRequest>> requestItems, int attempt) {
+        BatchWriteItemRequest request = BatchWriteItemRequest.builder().requestItems(requestItems).build();
+        return writeRateController.submit(WriteRateController.Flow.CANDLES, () -> dynamoDbAsyncClient.batchWriteItem(request),
+                        WriteRateController::hasUnprocessedItems)
+                .thenCompose(response -> {
+                    if (!WriteRateController.hasUnprocessedItems(response)) {
+                        return CompletableFuture.completedFuture(List.<Candle>of());
+                    }
+                    if (attempt >= 5) {
+                        return CompletableFuture.completedFuture(response.unprocessedItems().values().stream()
+                                .flatMap(List::stream)
+                                .map(unprocessed -> fromItem(unprocessed.putRequest().item()))
+                                .toList());
+                    }
+                    return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(100L << attempt, TimeUnit.MILLISECONDS))
+                            .thenCompose(ignored -> writeBatch(response.unprocessedItems(), attempt + 1));
+                });
+    }
+
+    // Stored candles between two instants plus, if it falls in the range, the candle still open here
+    public CompletableFuture<List<Candle>> getCandlesAsync(String symbol, CandleResolution resolution, long from, long to) {
+        String upper = symbol.toUpperCase();
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":series", AttributeValue.builder().s(series(upper, resolution)).build());
+        values.put(":from", AttributeValue.builder().n(String.valueOf(resolution.startOf(from))).build());
+        values.put(":to", AttributeValue.builder().n(String.valueOf(to)).build());
+
+        return queryCandles(values, null, new ArrayList<>()).thenApply(candles -> {
+            Candle current = open.get(new SeriesKey(upper, resolution));
+            if (current != null && current.start() <= to && current.start() >= resolution.startOf(from)) {
+                candles.removeIf(candle -> candle.start() == current.start());
+                candles.add(current);
+            }
+            return candles;
+        });
+    }
+
+    public List<Candle> getCandles(String symbol, CandleResolution resolution, long from, long to) {
+        return Futures.await(getCandlesAsync(symbol, resolution, from, to));
+    }
+
+    private CompletableFuture<List<Candle>> queryCandles(Map<String, AttributeValue> values,
+                                                         Map<String, AttributeValue> exclusiveStartKey,
+                                                         List<Candle> candles) {
+        QueryRequest request = QueryRequest.builder()
+                .tableName(candlesTableName)
+                .keyConditionExpression("series = :series AND #start BETWEEN :from AND :to")
+                .expressionAttributeNames(Map.of("#start", "start"))
+                .expressionAttributeValues(values)
+                .exclusiveStartKey(exclusiveStartKey)
+                .build();
+
+        return dynamoDbAsyncClient.query(request).thenCompose(response -> {
+            response.items().forEach(item -> candles.add(fromItem(item)));
+            return response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                    ? queryCandles(values, response.lastEvaluatedKey(), candles)
+                    : CompletableFuture.completedFuture(candles);
+        });
+    }
+
+    private static String series(String symbol, CandleResolution resolution) {
+        return symbol + "#" + resolution.label();
+    }
+
+    private static Map<String, AttributeValue> key(String symbol, CandleResolution resolution, long start) {
+        return Map.of(
+                "series", AttributeValue.builder().s(series(symbol, resolution)).build(),
+                "start", AttributeValue.builder().n(String.valueOf(start)).build());
+    }
+
+    private Map<String, AttributeValue> toItem(Candle candle) {
+        Map<String, AttributeValue> item = new HashMap<>(key(candle.symbol(), candle.resolution(), candle.start()));
+        item.put("o", AttributeValue.builder().n(candle.open().toString()).build());
+        item.put("h", AttributeValue.builder().n(candle.high().toString()).build());
+        item.put("l", AttributeValue.builder().n(candle.low().toString()).build());
+        item.put("c", AttributeValue.builder().n(candle.close().toString()).build());
+        item.put("v", AttributeValue.builder().n(candle.volume().toString()).build());
+        item.put("n", AttributeValue.builder().n(String.valueOf(candle.ticks())).build());
+        long expiry = retentionService.candleExpiry(candle.resolution(), candle.start() + candle.resolution().width().toMillis());
+        if (expiry > 0) {
+            item.put(RetentionService.TTL_ATTRIBUTE, AttributeValue.builder().n(String.valueOf(expiry)).build());
+        }
+        return item;
+    }
+
+    private static Candle fromItem(Map<String, AttributeValue> item) {
+        String series = item.get("series").s();
+        int separator = series.lastIndexOf('#');
+        return new Candle(
+                series.substring(0, separator),
+                CandleResolution.fromLabel(series.substring(separator + 1)),
+                Long.parseLong(item.get("start").n()),
+                new BigDecimal(item.get("o").n()),
+                new BigDecimal(item.get("h").n()),
+                new BigDecimal(item.get("l").n()),
+                new BigDecimal(item.get("c").n()),
+                new BigDecimal(item.get("v").n()),
+                Integer.parseInt(item.get("n").n()));
+    }
+}
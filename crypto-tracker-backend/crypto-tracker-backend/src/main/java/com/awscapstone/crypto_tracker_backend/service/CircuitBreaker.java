@@ -0,0 +1,84 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.exception.UpstreamUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Minimal consecutive-failure circuit breaker. After the threshold is
+ * reached calls are rejected until the open period has passed; then a
+ * single probe is let through to decide whether to close again.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    public <T> T call(Supplier<T> supplier) {
+        if (!tryAcquire()) {
+            throw new UpstreamUnavailableException("Circuit " + name + " is open");
+        }
+        try {
+            T result = supplier.get();
+            onSuccess();
+            return result;
+        } catch (RuntimeException | Error e) {
+            onFailure();
+            throw e;
+        }
+    }
+
+    public synchronized boolean tryAcquire() {
+        return switch (state) {
+            case CLOSED -> true;
+            case HALF_OPEN -> false;
+            case OPEN -> {
+                if (System.nanoTime() - openedAtNanos >= openDurationNanos) {
+                    state = State.HALF_OPEN;
+                    log.info("Circuit {} half-open, probing upstream", name);
+                    yield true;
+                }
+                yield false;
+            }
+        };
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Circuit {} closed", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                log.warn("Circuit {} opened after {} consecutive failures", name, consecutiveFailures);
+            }
+            state = State.OPEN;
+            openedAtNanos = System.nanoTime();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,30 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records when a client last asked for data, so background work can
+ * slow down while nobody is listening.
+ */
+@Component
+public class ClientActivityTracker implements HandlerInterceptor {
+
+    private final AtomicLong lastRequestMillis = new AtomicLong();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        lastRequestMillis.set(System.currentTimeMillis());
+        return true;
+    }
+
+    public boolean isIdleFor(Duration duration) {
+        long last = lastRequestMillis.get();
+        return last == 0 || System.currentTimeMillis() - last > duration.toMillis();
+    }
+}
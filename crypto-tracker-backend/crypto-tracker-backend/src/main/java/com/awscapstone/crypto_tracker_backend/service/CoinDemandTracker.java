@@ -0,0 +1,37 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts how often each symbol is requested or watched. Scores halve
+ * every hour so that interest fades unless it is renewed.
+ */
+@Component
+public class CoinDemandTracker {
+
+    private final Map<String, Double> scores = new ConcurrentHashMap<>();
+
+    public void recordDemand(String symbol) {
+        recordDemand(symbol, 1.0);
+    }
+
+    public void recordDemand(String symbol, double weight) {
+        if (symbol != null) {
+            scores.merge(symbol.toUpperCase(), weight, Double::sum);
+        }
+    }
+
+    public double getScore(String symbol) {
+        return symbol == null ? 0 : scores.getOrDefault(symbol.toUpperCase(), 0.0);
+    }
+
+    @Scheduled(fixedRate = 3600000)
+    public void decay() {
+        scores.replaceAll((symbol, score) -> score / 2);
+        scores.values().removeIf(score -> score < 0.1);
+    }
+}
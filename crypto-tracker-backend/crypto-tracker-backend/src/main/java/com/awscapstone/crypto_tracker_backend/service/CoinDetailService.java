@@ -0,0 +1,127 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.model.CoinDetail;
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fetches per-coin detail (all-time high/low, description, links) on
+ * demand, outside the ingestion tick. Results are cached per coin with a
+ * TTL in an LRU map of bounded size, and concurrent requests for the same
+ * coin share a single upstream call.
+ */
+@Service
+@Slf4j
+public class CoinDetailService {
+
+    private final CoinGeckoService coinGeckoService;
+    private final CloudWatchService cloudWatchService;
+    private final long ttlNanos;
+    private final long waitMs;
+    private final Map<String, CachedDetail> cache;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private record CachedDetail(CompletableFuture<CoinDetail> detail, long expiresAtNanos) {
+    }
+
+    public CoinDetailService(CoinGeckoService coinGeckoService,
+                             CloudWatchService cloudWatchService,
+                             @Value("${coin-detail.ttl-ms:600000}") long ttlMs,
+                             @Value("${coin-detail.max-entries:1000}") int maxEntries,
+                             @Value("${coin-detail.wait-ms:2000}") long waitMs) {
+        this.coinGeckoService = coinGeckoService;
+        this.cloudWatchService = cloudWatchService;
+        this.ttlNanos = Duration.ofMillis(ttlMs).toNanos();
+        this.waitMs = waitMs;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedDetail> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public CompletableFuture<CoinDetail> getDetail(String coinId) {
+        synchronized (cache) {
+            CachedDetail cached = cache.get(coinId);
+            if (cached != null && (!cached.detail().isDone() || System.nanoTime() < cached.expiresAtNanos())) {
+                hits.increment();
+                return cached.detail();
+            }
+
+            misses.increment();
+            CompletableFuture<CoinDetail> detail = CompletableFuture.supplyAsync(() -> coinGeckoService.fetchDetail(coinId), executor);
+            CachedDetail entry = new CachedDetail(detail, System.nanoTime() + ttlNanos);
+            cache.put(coinId, entry);
+
+            // Failures are not cached, so the next request retries
+            detail.whenComplete((result, error) -> {
+                if (error != null) {
+                    synchronized (cache) {
+                        cache.remove(coinId, entry);
+                    }
+                }
+            });
+            return detail;
+        }
+    }
+
+    // Copies detail fields onto the price if they arrive within the wait budget; returns null otherwise
+    public CoinDetail enrich(CryptoPrice cryptoPrice) {
+        if (cryptoPrice.getCoinId() == null) {
+            return null;
+        }
+
+        try {
+            CoinDetail detail = getDetail(cryptoPrice.getCoinId()).get(waitMs, TimeUnit.MILLISECONDS);
+            cryptoPrice.setAth(detail.getAth());
+            cryptoPrice.setAthChangePercentage(detail.getAthChangePercentage());
+            return detail;
+        } catch (TimeoutException e) {
+            log.debug("Detail for {} not ready within {} ms", cryptoPrice.getCoinId(), waitMs);
+        } catch (ExecutionException e) {
+            log.warn("Failed to fetch detail for {}: {}", cryptoPrice.getCoinId(), e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void publishMetrics() {
+        long hitCount = hits.sumThenReset();
+        long missCount = misses.sumThenReset();
+        if (hitCount + missCount > 0) {
+            cloudWatchService.publishMetric("CoinDetailCacheHits", hitCount, "Count");
+            cloudWatchService.publishMetric("CoinDetailCacheMisses", missCount, "Count");
+        }
+        int size;
+        synchronized (cache) {
+            size = cache.size();
+        }
+        cloudWatchService.publishMetric("CoinDetailCacheSize", size, "Count");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
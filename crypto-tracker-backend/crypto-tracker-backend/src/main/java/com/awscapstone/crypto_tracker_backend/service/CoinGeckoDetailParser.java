@@ -0,0 +1,135 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.model.CoinDetail;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Token-streaming parser for the CoinGecko /coins/{id} response. Only the
+ * descriptive fields and the per-currency market extremes are read; the
+ * rest of the (large) document is skipped.
+ */
+@Component
+public class CoinGeckoDetailParser {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public CoinDetail parse(InputStream body, String vsCurrency) throws IOException {
+        CoinDetail detail = new CoinDetail();
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object from CoinGecko coin endpoint");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                switch (field) {
+                    case "id" -> detail.setCoinId(parser.getText());
+                    case "description" -> detail.setDescription(readKey(parser, value, "en"));
+                    case "links" -> detail.setHomepage(readHomepage(parser, value));
+                    case "market_data" -> readMarketData(parser, value, vsCurrency, detail);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+
+        detail.setFetchedAt(LocalDateTime.now(ZoneOffset.UTC));
+        return detail;
+    }
+
+    private void readMarketData(JsonParser parser, JsonToken value, String currency, CoinDetail detail) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken fieldValue = parser.nextToken();
+
+            switch (field) {
+                case "ath" -> detail.setAth(decimal(readKey(parser, fieldValue, currency)));
+                case "ath_change_percentage" -> detail.setAthChangePercentage(decimal(readKey(parser, fieldValue, currency)));
+                case "ath_date" -> detail.setAthDate(timestamp(readKey(parser, fieldValue, currency)));
+                case "atl" -> detail.setAtl(decimal(readKey(parser, fieldValue, currency)));
+                case "atl_change_percentage" -> detail.setAtlChangePercentage(decimal(readKey(parser, fieldValue, currency)));
+                case "atl_date" -> detail.setAtlDate(timestamp(readKey(parser, fieldValue, currency)));
+                case "high_24h" -> detail.setHigh24h(decimal(readKey(parser, fieldValue, currency)));
+                case "low_24h" -> detail.setLow24h(decimal(readKey(parser, fieldValue, currency)));
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    // Reads one entry of a per-language or per-currency object as text, skipping the others
+    private String readKey(JsonParser parser, JsonToken value, String key) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+
+        String result = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            JsonToken token = parser.nextToken();
+            if (key.equalsIgnoreCase(parser.currentName()) && token.isScalarValue() && token != JsonToken.VALUE_NULL) {
+                result = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    private String readHomepage(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+
+        String homepage = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            JsonToken token = parser.nextToken();
+            if ("homepage".equals(parser.currentName()) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    String url = parser.currentToken() == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    if (homepage == null && url != null && !url.isBlank()) {
+                        homepage = url;
+                    }
+                    parser.skipChildren();
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return homepage;
+    }
+
+    private BigDecimal decimal(String text) {
+        try {
+            return text != null ? new BigDecimal(text) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private LocalDateTime timestamp(String text) {
+        try {
+            return text != null ? LocalDateTime.ofInstant(Instant.parse(text), ZoneOffset.UTC) : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
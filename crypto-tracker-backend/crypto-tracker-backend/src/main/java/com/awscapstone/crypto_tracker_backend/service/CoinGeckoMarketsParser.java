@@ -0,0 +1,194 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.model.Sparkline;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Token-streaming parser for the CoinGecko /coins/markets response.
+ * Reads straight from the response body into {@link CryptoPrice} without
+ * building a JsonNode tree or copying the payload into a String first.
+ */
+@Component
+public class CoinGeckoMarketsParser {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Value("${sparkline.quantization-bits:16}")
+    private int sparklineQuantizationBits;
+
+    public List<CryptoPrice> parse(InputStream body) throws IOException {
+        List<CryptoPrice> cryptoPrices = new ArrayList<>();
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array from CoinGecko markets endpoint");
+            }
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                cryptoPrices.add(parseCoin(parser));
+            }
+        }
+
+        return cryptoPrices;
+    }
+
+    // Reads the /coins/list response into coin ids grouped by upper-case symbol
+    public Map<String, List<String>> parseCoinList(InputStream body) throws IOException {
+        Map<String, List<String>> idsBySymbol = new HashMap<>();
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array from CoinGecko coins list endpoint");
+            }
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String id = null;
+                String symbol = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "id" -> id = parser.getText();
+                        case "symbol" -> symbol = parser.getText();
+                        default -> parser.skipChildren();
+                    }
+                }
+                if (id != null && symbol != null) {
+                    idsBySymbol.computeIfAbsent(symbol.toUpperCase(), key -> new ArrayList<>(1)).add(id);
+                }
+            }
+        }
+
+        return idsBySymbol;
+    }
+
+    private CryptoPrice parseCoin(JsonParser parser) throws IOException {
+        CryptoPrice cryptoPrice = new CryptoPrice();
+        BigDecimal change24hInCurrency = null;
+        BigDecimal change24h = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            switch (field) {
+                case "id" -> cryptoPrice.setCoinId(parser.getText());
+                case "symbol" -> cryptoPrice.setSymbol(parser.getText().toUpperCase());
+                case "name" -> cryptoPrice.setName(parser.getText());
+                case "image" -> cryptoPrice.setImage(parser.getText());
+                case "current_price" -> cryptoPrice.setCurrentPrice(decimal(parser, value));
+                case "price_change_percentage_1h_in_currency" -> cryptoPrice.setPriceChangePercentage1h(decimal(parser, value));
+                case "price_change_percentage_24h_in_currency" -> change24hInCurrency = decimal(parser, value);
+                case "price_change_percentage_24h" -> change24h = decimal(parser, value);
+                case "price_change_percentage_7d_in_currency" -> cryptoPrice.setPriceChangePercentage7d(decimal(parser, value));
+                case "total_volume" -> cryptoPrice.setTotalVolume(decimal(parser, value));
+                case "market_cap" -> cryptoPrice.setMarketCap(decimal(parser, value));
+                case "market_cap_rank" -> cryptoPrice.setMarketCapRank(value.isNumeric() ? parser.getIntValue() : 0);
+                case "circulating_supply" -> cryptoPrice.setCirculatingSupply(decimal(parser, value));
+                case "max_supply" -> cryptoPrice.setMaxSupply(decimal(parser, value));
+                case "last_updated" -> cryptoPrice.setLastUpdated(timestamp(parser, value));
+                case "sparkline_in_7d" -> cryptoPrice.setSparkline7d(parseSparkline(parser, value));
+                default -> parser.skipChildren();
+            }
+        }
+
+        cryptoPrice.setPriceChangePercentage24h(change24hInCurrency != null ? change24hInCurrency : change24h);
+        applyDefaults(cryptoPrice);
+
+        return cryptoPrice;
+    }
+
+    // Reads sparkline_in_7d.price straight into a packed Sparkline
+    private Sparkline parseSparkline(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return Sparkline.empty();
+        }
+
+        Sparkline sparkline = Sparkline.empty();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            JsonToken token = parser.nextToken();
+            if ("price".equals(parser.currentName()) && token == JsonToken.START_ARRAY) {
+                double[] values = new double[192];
+                int length = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (!parser.currentToken().isNumeric()) {
+                        continue;
+                    }
+                    if (length == values.length) {
+                        values = Arrays.copyOf(values, length * 2);
+                    }
+                    values[length++] = parser.getDoubleValue();
+                }
+                sparkline = Sparkline.encode(values, length, sparklineQuantizationBits);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return sparkline;
+    }
+
+    private BigDecimal decimal(JsonParser parser, JsonToken value) throws IOException {
+        return value.isNumeric() ? parser.getDecimalValue() : null;
+    }
+
+    // CoinGecko reports when it last refreshed the coin as an ISO-8601 instant
+    private LocalDateTime timestamp(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.VALUE_STRING) {
+            return null;
+        }
+        try {
+            return LocalDateTime.ofInstant(Instant.parse(parser.getText()), ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private void applyDefaults(CryptoPrice cryptoPrice) {
+        if (cryptoPrice.getCurrentPrice() == null) {
+            cryptoPrice.setCurrentPrice(BigDecimal.ZERO);
+        }
+        if (cryptoPrice.getPriceChangePercentage1h() == null) {
+            cryptoPrice.setPriceChangePercentage1h(BigDecimal.ZERO);
+        }
+        if (cryptoPrice.getPriceChangePercentage24h() == null) {
+            cryptoPrice.setPriceChangePercentage24h(BigDecimal.ZERO);
+        }
+        if (cryptoPrice.getPriceChangePercentage7d() == null) {
+            cryptoPrice.setPriceChangePercentage7d(BigDecimal.ZERO);
+        }
+        if (cryptoPrice.getTotalVolume() == null) {
+            cryptoPrice.setTotalVolume(BigDecimal.ZERO);
+        }
+        if (cryptoPrice.getMarketCap() == null) {
+            cryptoPrice.setMarketCap(BigDecimal.ZERO);
+        }
+        if (cryptoPrice.getMarketCapRank() == null) {
+            cryptoPrice.setMarketCapRank(0);
+        }
+        if (cryptoPrice.getLastUpdated() == null) {
+            cryptoPrice.setLastUpdated(LocalDateTime.now(ZoneOffset.UTC));
+        }
+        if (cryptoPrice.getSparkline7d() == null) {
+            cryptoPrice.setSparkline7d(Sparkline.empty());
+        }
+    }
+}
@@ -1,21 +1,40 @@
 package com.awscapstone.crypto_tracker_backend.service;
 
+import com.awscapstone.crypto_tracker_backend.model.CoinDetail;
 import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.awscapstone.crypto_tracker_backend.source.PriceSource;
+import com.awscapstone.crypto_tracker_backend.source.ResponseRecording;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResponseExtractor;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
-public class CoinGeckoService {
+public class CoinGeckoService implements PriceSource {
+
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(60);
+    private static final int MAX_PER_PAGE = 250;
 
     @Value("${coingecko.api.key}")
     private String apiKey;
@@ -32,95 +51,302 @@ public class CoinGeckoService {
     @Value("${coingecko.api.per-page:10}")
     private int perPage;
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Value("${coingecko.api.pages:1}")
+    private int pages;
 
-    public List<CryptoPrice> fetchCryptoData() {
-        try {
-            String url;
-            if (apiKey != null && !apiKey.isEmpty() && !"demo".equals(apiKey)) {
-                url = String.format("%s?vs_currency=%s&order=%s&per_page=%d&page=1&sparkline=true&price_change_percentage=1h,24h,7d&x_cg_demo_api_key=%s",
-                        apiUrl, vsCurrency, order, perPage, apiKey);
-                log.info("Fetching data from CoinGecko with API key");
-            } else {
-                url = String.format("%s?vs_currency=%s&order=%s&per_page=%d&page=1&sparkline=true&price_change_percentage=1h,24h,7d",
-                        apiUrl, vsCurrency, order, perPage);
-                log.info("Fetching data from CoinGecko: {}", url);
-            }
+    @Value("${coingecko.api.max-retries:3}")
+    private int maxRetries;
 
-            String response = restTemplate.getForObject(url, String.class);
-            JsonNode root = objectMapper.readTree(response);
+    @Value("${coingecko.api.coins-list-url:https://api.coingecko.com/api/v3/coins/list}")
+    private String coinsListUrl;
 
-            List<CryptoPrice> cryptoPrices = new ArrayList<>();
+    @Value("${coingecko.api.coins-list-ttl-ms:86400000}")
+    private long coinsListTtlMs;
 
-            for (JsonNode coin : root) {
-                CryptoPrice cryptoPrice = new CryptoPrice();
+    @Value("${coingecko.api.max-ids-per-symbol:5}")
+    private int maxIdsPerSymbol;
 
-                cryptoPrice.setCoinId(coin.get("id").asText());
-                cryptoPrice.setSymbol(coin.get("symbol").asText().toUpperCase());
-                cryptoPrice.setName(coin.get("name").asText());
-                cryptoPrice.setImage(coin.get("image").asText());
-                cryptoPrice.setCurrentPrice(new BigDecimal(coin.get("current_price").asText()));
+    @Value("${coingecko.api.max-url-length:2000}")
+    private int maxUrlLength;
 
-                if (coin.has("price_change_percentage_1h_in_currency") && !coin.get("price_change_percentage_1h_in_currency").isNull()) {
-                    cryptoPrice.setPriceChangePercentage1h(
-                            new BigDecimal(coin.get("price_change_percentage_1h_in_currency").asText())
-                    );
-                } else {
-                    cryptoPrice.setPriceChangePercentage1h(BigDecimal.ZERO);
-                }
+    @Value("${coingecko.api.detail-url:https://api.coingecko.com/api/v3/coins}")
+    private String detailUrl;
 
-                if (coin.has("price_change_percentage_24h_in_currency") && !coin.get("price_change_percentage_24h_in_currency").isNull()) {
-                    cryptoPrice.setPriceChangePercentage24h(
-                            new BigDecimal(coin.get("price_change_percentage_24h_in_currency").asText())
-                    );
-                } else if (coin.has("price_change_percentage_24h") && !coin.get("price_change_percentage_24h").isNull()) {
-                    cryptoPrice.setPriceChangePercentage24h(
-                            new BigDecimal(coin.get("price_change_percentage_24h").asText())
-                    );
-                } else {
-                    cryptoPrice.setPriceChangePercentage24h(BigDecimal.ZERO);
-                }
+    @Value("${coin-detail.rate-limit-reserve:5}")
+    private double detailRateLimitReserve;
 
-                if (coin.has("price_change_percentage_7d_in_currency") && !coin.get("price_change_percentage_7d_in_currency").isNull()) {
-                    cryptoPrice.setPriceChangePercentage7d(
-                            new BigDecimal(coin.get("price_change_percentage_7d_in_currency").asText())
-                    );
-                } else {
-                    cryptoPrice.setPriceChangePercentage7d(BigDecimal.ZERO);
+    private final CoinGeckoMarketsParser marketsParser;
+    private final CoinGeckoDetailParser detailParser;
+    private final UpstreamRateLimiter rateLimiter;
+    private final UpstreamHttpClient upstreamHttpClient;
+    private final UpstreamRecorder upstreamRecorder;
+
+    private Map<String, List<String>> coinIdsBySymbol;
+    private long coinIdsLoadedAt;
+    // Market cap rank of every coin seen in a markets response, used to pick among coins sharing a symbol
+    private final Map<String, Integer> knownRanks = new ConcurrentHashMap<>();
+
+    @Override
+    public String getName() {
+        return "coingecko";
+    }
+
+    @Override
+    public List<CryptoPrice> fetchPrices() {
+        return fetchCryptoData();
+    }
+
+    @Override
+    public List<CryptoPrice> fetchRankRange(int fromRank, int toRank) {
+        return fetchPages((fromRank - 1) / perPage + 1, (toRank - 1) / perPage + 1);
+    }
+
+    @Override
+    public List<CryptoPrice> fetchByIds(Collection<String> coinIds) {
+        List<String> batches = idBatches(coinIds);
+        long tick = System.currentTimeMillis();
+        List<Future<List<CryptoPrice>>> futures = new ArrayList<>(batches.size());
+        List<CryptoPrice> cryptoPrices = new ArrayList<>(coinIds.size());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String batch : batches) {
+                futures.add(executor.submit(() -> fetchUrl(buildIdsUrl(batch), "ids batch", markets(tick, ResponseRecording.Kind.IDS, "ids"))));
+            }
+            int failedBatches = 0;
+            for (Future<List<CryptoPrice>> future : futures) {
+                try {
+                    cryptoPrices.addAll(future.get());
+                } catch (Exception e) {
+                    failedBatches++;
+                    log.warn("CoinGecko ids batch failed: {}", e.getMessage());
                 }
+            }
+            if (cryptoPrices.isEmpty() && failedBatches > 0) {
+                throw new RuntimeException("Failed to fetch cryptocurrency data: all " + batches.size() + " id batches failed");
+            }
+        }
 
-                cryptoPrice.setTotalVolume(new BigDecimal(coin.get("total_volume").asText()));
-                cryptoPrice.setMarketCap(new BigDecimal(coin.get("market_cap").asText()));
-                cryptoPrice.setMarketCapRank(coin.get("market_cap_rank").asInt());
+        log.info("Fetched {} of {} requested cryptocurrencies by id in {} requests", cryptoPrices.size(), coinIds.size(), batches.size());
+        return cryptoPrices;
+    }
 
-                // Add circulating and max supply
-                if (coin.has("circulating_supply") && !coin.get("circulating_supply").isNull()) {
-                    cryptoPrice.setCirculatingSupply(new BigDecimal(coin.get("circulating_supply").asText()));
+    @Override
+    public List<CryptoPrice> fetchBySymbols(Collection<String> symbols) {
+        Map<String, List<String>> idsBySymbol = coinIdsBySymbol();
+        Set<String> ids = new LinkedHashSet<>();
+        for (String symbol : symbols) {
+            // The coin list is in no useful order, so candidates are ranked by what the market pages have shown
+            idsBySymbol.getOrDefault(symbol.toUpperCase(), List.of()).stream()
+                    .sorted(Comparator.comparingInt(id -> knownRanks.getOrDefault(id, Integer.MAX_VALUE)))
+                    .limit(maxIdsPerSymbol)
+                    .forEach(ids::add);
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Several coins can share a symbol; keep the one with the best market cap rank
+        Map<String, CryptoPrice> bestBySymbol = new LinkedHashMap<>();
+        for (CryptoPrice cryptoPrice : fetchByIds(ids)) {
+            bestBySymbol.merge(cryptoPrice.getSymbol(), cryptoPrice,
+                    (current, candidate) -> rank(candidate) < rank(current) ? candidate : current);
+        }
+        return new ArrayList<>(bestBySymbol.values());
+    }
+
+    /**
+     * Fetches the detail document for one coin. Detail lookups never wait
+     * for rate limit tokens and leave a reserve for ingestion, so they fail
+     * fast when the quota is tight.
+     */
+    public CoinDetail fetchDetail(String coinId) {
+        if (coinId == null || !coinId.matches("[a-z0-9-]+")) {
+            throw new IllegalArgumentException("Invalid coin id: " + coinId);
+        }
+        if (!rateLimiter.tryAcquire(detailRateLimitReserve)) {
+            throw new IllegalStateException("No CoinGecko quota to spare for detail lookups");
+        }
+
+        String url = withApiKey(detailUrl + "/" + coinId
+                + "?localization=false&tickers=false&market_data=true&community_data=false&developer_data=false&sparkline=false");
+        try {
+            log.info("Fetching detail for {} from CoinGecko", coinId);
+            return upstreamHttpClient.get(url, response -> detailParser.parse(response.getBody(), vsCurrency));
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            rateLimiter.pauseFor(retryAfter(e));
+            throw e;
+        }
+    }
+
+    public List<CryptoPrice> fetchCryptoData() {
+        return fetchPages(1, Math.max(1, pages));
+    }
+
+    public List<CryptoPrice> fetchPages(int firstPage, int lastPage) {
+        // Pages of one fetch share a tick so that a replay can reassemble the snapshot
+        long tick = System.currentTimeMillis();
+        if (firstPage == lastPage) {
+            List<CryptoPrice> cryptoPrices = fetchPage(firstPage, tick);
+            log.info("Successfully fetched {} cryptocurrencies", cryptoPrices.size());
+            return cryptoPrices;
+        }
+
+        int pageCount = lastPage - firstPage + 1;
+        List<Future<List<CryptoPrice>>> futures = new ArrayList<>(pageCount);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int page = firstPage; page <= lastPage; page++) {
+                final int pageNumber = page;
+                futures.add(executor.submit(() -> fetchPage(pageNumber, tick)));
+            }
+
+            // Pages can shift between requests, so keep the first (highest ranked) entry per coin
+            Map<String, CryptoPrice> snapshot = new LinkedHashMap<>();
+            int failedPages = 0;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    for (CryptoPrice cryptoPrice : futures.get(i).get()) {
+                        snapshot.putIfAbsent(cryptoPrice.getCoinId(), cryptoPrice);
+                    }
+                } catch (Exception e) {
+                    failedPages++;
+                    log.warn("CoinGecko page {} failed: {}", firstPage + i, e.getMessage());
                 }
-                if (coin.has("max_supply") && !coin.get("max_supply").isNull()) {
-                    cryptoPrice.setMaxSupply(new BigDecimal(coin.get("max_supply").asText()));
+            }
+
+            if (snapshot.isEmpty() && failedPages > 0) {
+                throw new RuntimeException("Failed to fetch cryptocurrency data: all " + pageCount + " pages failed");
+            }
+
+            log.info("Successfully fetched {} cryptocurrencies from pages {}-{} ({} failed)",
+                    snapshot.size(), firstPage, lastPage, failedPages);
+            return new ArrayList<>(snapshot.values());
+        }
+    }
+
+    public List<CryptoPrice> fetchPage(int page) {
+        return fetchPage(page, System.currentTimeMillis());
+    }
+
+    private List<CryptoPrice> fetchPage(int page, long tick) {
+        return fetchUrl(buildMarketsUrl(page), "page " + page, markets(tick, ResponseRecording.Kind.MARKETS, "page " + page));
+    }
+
+    private ResponseExtractor<List<CryptoPrice>> markets(long tick, ResponseRecording.Kind kind, String description) {
+        return response -> {
+            List<CryptoPrice> cryptoPrices = marketsParser.parse(upstreamRecorder.record(tick, kind, description, response.getBody()));
+            for (CryptoPrice cryptoPrice : cryptoPrices) {
+                if (rank(cryptoPrice) != Integer.MAX_VALUE) {
+                    knownRanks.put(cryptoPrice.getCoinId(), rank(cryptoPrice));
                 }
+            }
+            return cryptoPrices;
+        };
+    }
 
-                // Convert sparkline data to string
-                if (coin.has("sparkline_in_7d") && coin.get("sparkline_in_7d").has("price")) {
-                    String sparkline = coin.get("sparkline_in_7d").get("price").toString();
-                    cryptoPrice.setSparkline7d(sparkline);
-                } else {
-                    cryptoPrice.setSparkline7d("[]");
+    // The coin list is large but rarely changes, so it is cached for a day and kept on refresh failures
+    private synchronized Map<String, List<String>> coinIdsBySymbol() {
+        if (coinIdsBySymbol == null || System.currentTimeMillis() - coinIdsLoadedAt > coinsListTtlMs) {
+            try {
+                coinIdsBySymbol = fetchUrl(withApiKey(coinsListUrl + "?include_platform=false"), "coins list",
+                        response -> marketsParser.parseCoinList(response.getBody()));
+                coinIdsLoadedAt = System.currentTimeMillis();
+                log.info("Loaded {} coin symbols from CoinGecko", coinIdsBySymbol.size());
+            } catch (RuntimeException e) {
+                if (coinIdsBySymbol == null) {
+                    throw e;
                 }
+                log.warn("Keeping cached CoinGecko coin list: {}", e.getMessage());
+            }
+        }
+        return coinIdsBySymbol;
+    }
+
+    // Packs ids into as few requests as possible without exceeding the page size or the URL length limit
+    private List<String> idBatches(Collection<String> coinIds) {
+        int baseLength = buildIdsUrl("").length();
+        List<String> batches = new ArrayList<>();
+        StringBuilder batch = new StringBuilder();
+        int count = 0;
+        for (String id : coinIds) {
+            if (count > 0 && (count == MAX_PER_PAGE || baseLength + batch.length() + 1 + id.length() > maxUrlLength)) {
+                batches.add(batch.toString());
+                batch.setLength(0);
+                count = 0;
+            }
+            if (count > 0) {
+                batch.append(',');
+            }
+            batch.append(id);
+            count++;
+        }
+        if (count > 0) {
+            batches.add(batch.toString());
+        }
+        return batches;
+    }
+
+    private static int rank(CryptoPrice cryptoPrice) {
+        Integer rank = cryptoPrice.getMarketCapRank();
+        return rank == null || rank == 0 ? Integer.MAX_VALUE : rank;
+    }
 
-                cryptoPrice.setLastUpdated(LocalDateTime.now());
+    private <T> T fetchUrl(String url, String description, ResponseExtractor<T> extractor) {
+        log.info("Fetching {} from CoinGecko", description);
+        for (int attempt = 0; ; attempt++) {
+            try {
+                rateLimiter.acquire();
+                return upstreamHttpClient.get(url, extractor);
 
-                cryptoPrices.add(cryptoPrice);
+            } catch (HttpClientErrorException.TooManyRequests e) {
+                rateLimiter.pauseFor(retryAfter(e));
+                if (attempt >= maxRetries) {
+                    log.error("CoinGecko {} still rate limited after {} retries", description, attempt);
+                    throw new RuntimeException("Failed to fetch cryptocurrency data", e);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for CoinGecko rate limit", e);
+            } catch (Exception e) {
+                log.error("Error fetching data from CoinGecko API: {}", e.getMessage());
+                throw new RuntimeException("Failed to fetch cryptocurrency data", e);
             }
+        }
+    }
 
-            log.info("Successfully fetched {} cryptocurrencies", cryptoPrices.size());
-            return cryptoPrices;
+    private String buildMarketsUrl(int page) {
+        return withApiKey(String.format("%s?vs_currency=%s&order=%s&per_page=%d&page=%d&sparkline=true&price_change_percentage=1h,24h,7d",
+                apiUrl, vsCurrency, order, perPage, page));
+    }
+
+    private String buildIdsUrl(String ids) {
+        return withApiKey(String.format("%s?vs_currency=%s&ids=%s&per_page=%d&sparkline=true&price_change_percentage=1h,24h,7d",
+                apiUrl, vsCurrency, ids, MAX_PER_PAGE));
+    }
+
+    private String withApiKey(String url) {
+        if (apiKey != null && !apiKey.isEmpty() && !"demo".equals(apiKey)) {
+            return url + "&x_cg_demo_api_key=" + apiKey;
+        }
+        return url;
+    }
 
-        } catch (Exception e) {
-            log.error("Error fetching data from CoinGecko API: {}", e.getMessage());
-            throw new RuntimeException("Failed to fetch cryptocurrency data", e);
+    // Retry-After may be delta-seconds or an HTTP date
+    private Duration retryAfter(HttpClientErrorException e) {
+        HttpHeaders headers = e.getResponseHeaders();
+        String value = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (value == null || value.isBlank()) {
+            return DEFAULT_RETRY_AFTER;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException ignored) {
+            try {
+                ZonedDateTime retryAt = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration wait = Duration.between(ZonedDateTime.now(), retryAt);
+                return wait.isNegative() ? Duration.ZERO : wait;
+            } catch (Exception parseError) {
+                return DEFAULT_RETRY_AFTER;
+            }
         }
     }
 }
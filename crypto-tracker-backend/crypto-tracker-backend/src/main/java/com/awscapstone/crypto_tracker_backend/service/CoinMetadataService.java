@@ -0,0 +1,192 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.model.CoinMetadata;
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.repository.ParallelScanner;
+import com.awscapstone.crypto_tracker_backend.repository.TableSchemas;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Coin names and images, kept in a table of their own and cached in
+ * process. Ingestion only writes a coin's row when something about it
+ * changed; readers fill these fields in from the cache instead of
+ * storing them with every price.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CoinMetadataService {
+
+    private static final int MAX_BATCH_WRITE_ITEMS = 25;
+    private static final int MAX_BATCH_GET_KEYS = 100;
+
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+    private final ParallelScanner parallelScanner;
+    private final CloudWatchService cloudWatchService;
+    private final WriteRateController writeRateController;
+
+    @Qualifier("coinMetadataTableName")
+    private final String coinMetadataTableName;
+
+    private final Map<String, CoinMetadata> byCoinId = new ConcurrentHashMap<>();
+    private final AtomicReference<CompletableFuture<Void>> loaded = new AtomicReference<>();
+
+    // Writes the coins whose metadata differs from what is stored; returns how many were written, best effort
+    public int updateChanged(List<CryptoPrice> cryptoPrices) {
+        Futures.await(loadAsync());
+
+        Map<String, CoinMetadata> changed = new HashMap<>();
+        for (CryptoPrice cryptoPrice : cryptoPrices) {
+            if (cryptoPrice.getCoinId() == null) {
+                continue;
+            }
+            CoinMetadata metadata = CoinMetadata.of(cryptoPrice);
+            if (!metadata.equals(byCoinId.get(metadata.coinId()))) {
+                changed.put(metadata.coinId(), metadata);
+            }
+        }
+        if (changed.isEmpty()) {
+            return 0;
+        }
+
+        List<CoinMetadata> toWrite = new ArrayList<>(changed.values());
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int from = 0; from < toWrite.size(); from += MAX_BATCH_WRITE_ITEMS) {
+            List<CoinMetadata> batch = toWrite.subList(from, Math.min(toWrite.size(), from + MAX_BATCH_WRITE_ITEMS));
+            batches.add(writeBatch(batch));
+        }
+        try {
+            Futures.await(CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)));
+        } catch (Exception e) {
+            // Coins not cached yet count as changed again on the next tick
+            log.warn("Failed to store coin metadata: {}", e.getMessage());
+            cloudWatchService.publishMetric("CoinMetadataWriteErrors", 1, "Count");
+            return 0;
+        }
+
+        log.info("Updated metadata for {} coins", toWrite.size());
+        cloudWatchService.publishMetric("CoinMetadataWrites", toWrite.size(), "Count");
+        return toWrite.size();
+    }
+
+    private CompletableFuture<Void> writeBatch(List<CoinMetadata> batch) {
+        List<WriteRequest> requests = batch.stream()
+                .map(metadata -> WriteRequest.builder().putRequest(PutRequest.builder().item(TableSchemas.COIN_METADATA.itemToMap(metadata, true)).build()).build())
+                .toList();
+
+        BatchWriteItemRequest request = BatchWriteItemRequest.builder()
+                .requestItems(Map.of(coinMetadataTableName, requests))
+                .build();
+        return writeRateController.submit(WriteRateController.Flow.METADATA, () -> dynamoDbAsyncClient.batchWriteItem(request),
+                        WriteRateController::hasUnprocessedItems)
+                .thenAccept(response -> {
+                    // Only cache what was stored, so unprocessed coins count as changed again next tick
+                    List<WriteRequest> unprocessed = response.hasUnprocessedItems()
+                            ? response.unprocessedItems().getOrDefault(coinMetadataTableName, List.of())
+                            : List.of();
+                    for (CoinMetadata metadata : batch) {
+                        boolean pending = unprocessed.stream()
+                                .anyMatch(write -> metadata.coinId().equals(write.putRequest().item().get("coinId").s()));
+                        if (!pending) {
+                            byCoinId.put(metadata.coinId(), metadata);
+                        }
+                    }
+                });
+    }
+
+    public CoinMetadata get(String coinId) {
+        Futures.await(loadAsync());
+        return coinId == null ? null : byCoinId.get(coinId);
+    }
+
+    // Fills in name and image from the cache, leaving fields already set alone
+    public CryptoPrice join(CryptoPrice cryptoPrice) {
+        CoinMetadata metadata = get(cryptoPrice.getCoinId());
+        if (metadata != null) {
+            if (cryptoPrice.getName() == null) {
+                cryptoPrice.setName(metadata.name());
+            }
+            if (cryptoPrice.getImage() == null) {
+                cryptoPrice.setImage(metadata.image());
+            }
+        }
+        return cryptoPrice;
+    }
+
+    // Joins a whole list, first fetching rows for coins written by another instance since the cache was loaded
+    public CompletableFuture<List<CryptoPrice>> joinAllAsync(List<CryptoPrice> cryptoPrices) {
+        // Composed rather than awaited, since this runs on SDK completion threads
+        return loadAsync().thenCompose(ignored -> lookupMissing(cryptoPrices))
+                .thenApply(ignored -> {
+                    cryptoPrices.forEach(this::join);
+                    return cryptoPrices;
+                });
+    }
+
+    private CompletableFuture<Void> lookupMissing(List<CryptoPrice> cryptoPrices) {
+        List<Map<String, AttributeValue>> missing = cryptoPrices.stream()
+                .map(CryptoPrice::getCoinId)
+                .filter(coinId -> coinId != null && !byCoinId.containsKey(coinId))
+                .distinct()
+                .map(coinId -> Map.of("coinId", AttributeValue.builder().s(coinId).build()))
+                .toList();
+
+        List<CompletableFuture<Void>> lookups = new ArrayList<>();
+        for (int from = 0; from < missing.size(); from += MAX_BATCH_GET_KEYS) {
+            List<Map<String, AttributeValue>> keys = missing.subList(from, Math.min(missing.size(), from + MAX_BATCH_GET_KEYS));
+            lookups.add(dynamoDbAsyncClient.batchGetItem(BatchGetItemRequest.builder()
+                            .requestItems(Map.of(coinMetadataTableName, KeysAndAttributes.builder().keys(keys).build()))
+                            .build())
+                    // Unprocessed keys just stay unjoined until the next read
+                    .thenAccept(response -> response.responses().getOrDefault(coinMetadataTableName, List.of())
+                            .forEach(item -> {
+                                CoinMetadata metadata = TableSchemas.COIN_METADATA.mapToItem(item);
+                                byCoinId.putIfAbsent(metadata.coinId(), metadata);
+                            }))
+                    .exceptionally(error -> {
+                        log.debug("Coin metadata lookup failed: {}", Futures.unwrap(error).getMessage());
+                        return null;
+                    }));
+        }
+        return CompletableFuture.allOf(lookups.toArray(CompletableFuture[]::new));
+    }
+
+    // The table is small (one row per coin), so it is read whole once and then kept current by our own writes
+    private CompletableFuture<Void> loadAsync() {
+        CompletableFuture<Void> load = loaded.get();
+        if (load != null) {
+            return load;
+        }
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        if (!loaded.compareAndSet(null, started)) {
+            return loaded.get();
+        }
+        parallelScanner.scanAsync(ScanRequest.builder().tableName(coinMetadataTableName).build(), item -> {
+                    CoinMetadata metadata = TableSchemas.COIN_METADATA.mapToItem(item);
+                    byCoinId.putIfAbsent(metadata.coinId(), metadata);
+                })
+                .whenComplete((stats, error) -> {
+                    if (error != null) {
+                        // Without the cache every coin looks changed once, which rewrites its row and repopulates the cache
+                        log.warn("Could not load coin metadata: {}", Futures.unwrap(error).getMessage());
+                    } else {
+                        log.info("Loaded metadata for {} coins", byCoinId.size());
+                    }
+                    started.complete(null);
+                });
+        return started;
+    }
+}
@@ -1,25 +1,34 @@
 package com.awscapstone.crypto_tracker_backend.service;
 
+import com.awscapstone.crypto_tracker_backend.model.BatchWriteResult;
 import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.model.PricePoint;
+import com.awscapstone.crypto_tracker_backend.model.PriceQuote;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class DynamoDBService {
 
-    private final DynamoDbClient dynamoDbClient;
-
-    @Qualifier("marketPricesTableName")
-    private final String marketPricesTableName;
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+    private final RetentionService retentionService;
+    private final WriteRateController writeRateController;
 
     @Qualifier("usersTableName")
     private final String usersTableName;
@@ -27,113 +36,275 @@ public class DynamoDBService {
     @Qualifier("watchlistTableName")
     private final String watchlistTableName;
 
-    public void storeCryptoData(List<CryptoPrice> cryptoPrices) {
+    @Qualifier("priceHistoryTableName")
+    private final String priceHistoryTableName;
+
+    @Value("${dynamodb.history.bucket-minutes:60}")
+    private int bucketMinutes;
+
+    @Value("${dynamodb.history.max-attempts:8}")
+    private int writeMaxAttempts;
+
+    @Value("${dynamodb.history.base-backoff-ms:50}")
+    private long writeBaseBackoffMs;
+
+    @Value("${dynamodb.history.max-backoff-ms:5000}")
+    private long writeMaxBackoffMs;
+
+    /**
+     * Appends one tick per coin to the coin's current history bucket. A
+     * bucket item holds parallel lists of tick offsets (seconds into the
+     * bucket), prices, volumes and market caps, so a day of 30-second
+     * ticks is 24 items rather than 2880, and name, image and sparkline
+     * live only in the latest-price view. How many appends run at once is
+     * up to the shared write-rate controller. Throttled appends are retried
+     * with jittered exponential backoff; whatever is left after the last
+     * attempt is counted as failed rather than silently dropped.
+     */
+    public CompletableFuture<BatchWriteResult> storeCryptoDataAsync(List<CryptoPrice> cryptoPrices) {
+        long timestamp = System.currentTimeMillis();
+
+        // History is keyed by symbol, so of coins sharing one only the best-ranked gets a tick
+        Map<String, CryptoPrice> bySymbol = new LinkedHashMap<>();
+        List<String> shadowed = new ArrayList<>();
         for (CryptoPrice crypto : cryptoPrices) {
-            try {
-                Map<String, AttributeValue> item = new HashMap<>();
-                item.put("symbol", AttributeValue.builder().s(crypto.getSymbol()).build());
-                item.put("timestamp", AttributeValue.builder().n(String.valueOf(System.currentTimeMillis())).build());
-                item.put("coinId", AttributeValue.builder().s(crypto.getCoinId() != null ? crypto.getCoinId() : crypto.getSymbol().toLowerCase()).build());
-                item.put("name", AttributeValue.builder().s(crypto.getName() != null ? crypto.getName() : crypto.getSymbol()).build());
-                item.put("image", AttributeValue.builder().s(crypto.getImage() != null ? crypto.getImage() : "").build());
-                item.put("current_price", AttributeValue.builder().n(crypto.getCurrentPrice().toString()).build());
-                item.put("price_change_percentage_1h", AttributeValue.builder().n(crypto.getPriceChangePercentage1h().toString()).build());
-                item.put("price_change_percentage_24h", AttributeValue.builder().n(crypto.getPriceChangePercentage24h().toString()).build());
-                item.put("price_change_percentage_7d", AttributeValue.builder().n(crypto.getPriceChangePercentage7d().toString()).build());
-                item.put("total_volume", AttributeValue.builder().n(crypto.getTotalVolume().toString()).build());
-                item.put("market_cap", AttributeValue.builder().n(crypto.getMarketCap().toString()).build());
-                item.put("market_cap_rank", AttributeValue.builder().n(String.valueOf(crypto.getMarketCapRank())).build());
-                item.put("sparkline_7d", AttributeValue.builder().s(crypto.getSparkline7d() != null ? crypto.getSparkline7d() : "[]").build());
-                item.put("last_updated", AttributeValue.builder().s(crypto.getLastUpdated().toString()).build());
-
-                PutItemRequest request = PutItemRequest.builder()
-                        .tableName(marketPricesTableName)
-                        .item(item)
-                        .build();
-
-                dynamoDbClient.putItem(request);
-                log.debug("Stored {} in DynamoDB", crypto.getSymbol());
-
-            } catch (Exception e) {
-                log.error("Error storing {} in DynamoDB: {}", crypto.getSymbol(), e.getMessage());
+            CryptoPrice kept = bySymbol.putIfAbsent(crypto.getSymbol(), crypto);
+            if (kept == null || Objects.equals(kept.getCoinId(), crypto.getCoinId())) {
+                continue;
+            }
+            if (rank(crypto) < rank(kept)) {
+                bySymbol.put(crypto.getSymbol(), crypto);
+                shadowed.add(kept.getCoinId());
+            } else {
+                shadowed.add(crypto.getCoinId());
             }
         }
-        log.info("Stored {} cryptocurrencies in DynamoDB", cryptoPrices.size());
-    }
+        if (!shadowed.isEmpty()) {
+            log.debug("Left out of history for sharing a symbol with a better-ranked coin: {}", shadowed);
+        }
+        BatchWriteResult skipped = new BatchWriteResult(0, 0, 0, shadowed.size());
 
-    public List<CryptoPrice> getAllCryptoPrices() {
-        List<CryptoPrice> result = new ArrayList<>();
+        return appendAll(new ArrayList<>(bySymbol.values()), timestamp).thenApply(result -> {
+            if (result.failed() > 0) {
+                log.warn("Appended {} cryptocurrencies to history buckets ({} failed after retries, {} retries, {} sharing a symbol skipped)",
+                        result.written(), result.failed(), result.retries(), shadowed.size());
+            } else {
+                log.info("Appended {} cryptocurrencies to history buckets ({} retries, {} sharing a symbol skipped)",
+                        result.written(), result.retries(), shadowed.size());
+            }
+            return result.plus(skipped);
+        });
+    }
 
-        try {
-            ScanRequest scanRequest = ScanRequest.builder()
-                    .tableName(marketPricesTableName)
-                    .build();
+    private static int rank(CryptoPrice cryptoPrice) {
+        Integer rank = cryptoPrice.getMarketCapRank();
+        return rank == null || rank == 0 ? Integer.MAX_VALUE : rank;
+    }
 
-            ScanResponse response = dynamoDbClient.scan(scanRequest);
+    public BatchWriteResult storeCryptoData(List<CryptoPrice> cryptoPrices) {
+        return Futures.await(storeCryptoDataAsync(cryptoPrices));
+    }
 
-            for (Map<String, AttributeValue> item : response.items()) {
-                CryptoPrice cryptoPrice = mapToCryptoPrice(item);
-                result.add(cryptoPrice);
+    // One append per lane at a time, with only as many lanes as the write limit can ever run together
+    private CompletableFuture<BatchWriteResult> appendAll(List<CryptoPrice> cryptoPrices, long timestamp) {
+        int lanes = Math.min(cryptoPrices.size(), writeRateController.maxConcurrency());
+        List<CompletableFuture<BatchWriteResult>> results = new ArrayList<>(lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            CompletableFuture<BatchWriteResult> chain = CompletableFuture.completedFuture(BatchWriteResult.EMPTY);
+            for (int i = lane; i < cryptoPrices.size(); i += lanes) {
+                CryptoPrice crypto = cryptoPrices.get(i);
+                chain = chain.thenCompose(total -> append(appendRequest(crypto, timestamp), 1, 0).thenApply(total::plus));
             }
-
-        } catch (Exception e) {
-            log.error("Error scanning DynamoDB table: {}", e.getMessage());
+            results.add(chain);
         }
 
-        return result;
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> results.stream()
+                        .map(CompletableFuture::join)
+                        .reduce(BatchWriteResult.EMPTY, BatchWriteResult::plus));
     }
 
-    public CryptoPrice getCryptoPriceBySymbol(String symbol) {
-        try {
-            // Query for the latest entry for this symbol
-            Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
-            expressionAttributeValues.put(":symbol", AttributeValue.builder().s(symbol.toUpperCase()).build());
+    private CompletableFuture<BatchWriteResult> append(UpdateItemRequest request, int attempt, int retries) {
+        return writeRateController.submit(WriteRateController.Flow.HISTORY, () -> dynamoDbAsyncClient.updateItem(request))
+                .handle((response, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.completedFuture(new BatchWriteResult(1, 0, retries));
+                    }
+                    if (Futures.unwrap(error) instanceof ConditionalCheckFailedException) {
+                        // This tick (or a later one) is already in the bucket, e.g. after a retried request
+                        return CompletableFuture.completedFuture(new BatchWriteResult(1, 0, retries));
+                    }
+                    // A full write queue is back-pressure like throttling, not a broken write
+                    if (!WriteRateController.isThrottling(error) && !WriteRateController.isRejected(error)) {
+                        log.error("History append for {} failed: {}", request.key().get("symbol").s(), Futures.unwrap(error).getMessage());
+                        return CompletableFuture.completedFuture(new BatchWriteResult(0, 1, retries));
+                    }
+                    if (attempt >= writeMaxAttempts) {
+                        log.debug("Giving up on history append for {} after {} attempts", request.key().get("symbol").s(), attempt);
+                        return CompletableFuture.completedFuture(new BatchWriteResult(0, 1, retries));
+                    }
 
-            QueryRequest request = QueryRequest.builder()
-                    .tableName(marketPricesTableName)
-                    .keyConditionExpression("symbol = :symbol")
-                    .expressionAttributeValues(expressionAttributeValues)
-                    .scanIndexForward(false) // Get latest first
-                    .limit(1)
-                    .build();
+                    // Full jitter keeps concurrent appends from retrying in lockstep
+                    long ceiling = Math.min(writeMaxBackoffMs, writeBaseBackoffMs << Math.min(attempt, 20));
+                    long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+                    return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                            .thenCompose(ignored -> append(request, attempt + 1, retries + 1));
+                })
+                .thenCompose(result -> result);
+    }
+
+    private UpdateItemRequest appendRequest(CryptoPrice crypto, long timestamp) {
+        long bucket = bucketStart(timestamp);
+        long offset = (timestamp - bucket) / 1000;
 
-            QueryResponse response = dynamoDbClient.query(request);
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":empty", AttributeValue.builder().l(List.of()).build());
+        values.put(":t", numberList(String.valueOf(offset)));
+        values.put(":p", numberList(crypto.getCurrentPrice().toString()));
+        values.put(":v", numberList(crypto.getTotalVolume() != null ? crypto.getTotalVolume().toString() : "0"));
+        values.put(":c", numberList(crypto.getMarketCap() != null ? crypto.getMarketCap().toString() : "0"));
+        values.put(":offset", AttributeValue.builder().n(String.valueOf(offset)).build());
+        values.put(":expires", AttributeValue.builder().n(String.valueOf(retentionService.rawExpiry(bucket + bucketMillis()))).build());
 
-            if (!response.items().isEmpty()) {
-                return mapToCryptoPrice(response.items().get(0));
+        return UpdateItemRequest.builder()
+                .tableName(priceHistoryTableName)
+                .key(Map.of(
+                        "symbol", AttributeValue.builder().s(crypto.getSymbol()).build(),
+                        "bucket", AttributeValue.builder().n(String.valueOf(bucket)).build()))
+                .updateExpression("SET #t = list_append(if_not_exists(#t, :empty), :t), "
+                        + "#p = list_append(if_not_exists(#p, :empty), :p), "
+                        + "#v = list_append(if_not_exists(#v, :empty), :v), "
+                        + "#c = list_append(if_not_exists(#c, :empty), :c), "
+                        + "#last = :offset, #expires = :expires")
+                // Offsets only grow, which also makes a retried append a no-op
+                .conditionExpression("attribute_not_exists(#last) OR #last < :offset")
+                .expressionAttributeNames(Map.of("#t", "t", "#p", "p", "#v", "v", "#c", "c", "#last", "last",
+                        "#expires", RetentionService.TTL_ATTRIBUTE))
+                .expressionAttributeValues(values)
+                .build();
+    }
+
+    private static AttributeValue numberList(String number) {
+        return AttributeValue.builder().l(AttributeValue.builder().n(number).build()).build();
+    }
+
+    private long bucketStart(long timestamp) {
+        return timestamp - Math.floorMod(timestamp, bucketMillis());
+    }
+
+    private long bucketMillis() {
+        return bucketMinutes * 60_000L;
+    }
+
+    // Price points of one coin between two instants, read from the few buckets that cover the range
+    public CompletableFuture<List<PricePoint>> getPriceHistoryAsync(String symbol, Instant from, Instant to) {
+        Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
+        expressionAttributeValues.put(":symbol", AttributeValue.builder().s(symbol.toUpperCase()).build());
+        expressionAttributeValues.put(":from", AttributeValue.builder().n(String.valueOf(bucketStart(from.toEpochMilli()))).build());
+        expressionAttributeValues.put(":to", AttributeValue.builder().n(String.valueOf(to.toEpochMilli())).build());
+
+        return queryHistory(expressionAttributeValues, null, new ArrayList<>())
+                .thenApply(points -> points.stream()
+                        .filter(point -> point.timestamp() >= from.toEpochMilli() && point.timestamp() <= to.toEpochMilli())
+                        .toList());
+    }
+
+    public List<PricePoint> getPriceHistory(String symbol, Instant from, Instant to) {
+        return Futures.await(getPriceHistoryAsync(symbol, from, to));
+    }
+
+    // Bucket items also carry the append guard and expiry, which readers never need
+    private static final String HISTORY_PROJECTION = "#bucket, #t, #p, #v, #c";
+    private static final String HISTORY_PRICE_PROJECTION = "#bucket, #t, #p";
+    private static final Map<String, String> HISTORY_NAMES = Map.of("#bucket", "bucket", "#t", "t", "#p", "p", "#v", "v", "#c", "c");
+    private static final Map<String, String> HISTORY_PRICE_NAMES = Map.of("#bucket", "bucket", "#t", "t", "#p", "p");
+
+    private CompletableFuture<List<PricePoint>> queryHistory(Map<String, AttributeValue> expressionAttributeValues,
+                                                             Map<String, AttributeValue> exclusiveStartKey,
+                                                             List<PricePoint> points) {
+        QueryRequest request = QueryRequest.builder()
+                .tableName(priceHistoryTableName)
+                .keyConditionExpression("symbol = :symbol AND #bucket BETWEEN :from AND :to")
+                .projectionExpression(HISTORY_PROJECTION)
+                .expressionAttributeNames(HISTORY_NAMES)
+                .expressionAttributeValues(expressionAttributeValues)
+                .exclusiveStartKey(exclusiveStartKey)
+                .build();
+
+        return dynamoDbAsyncClient.query(request).thenCompose(response -> {
+            for (Map<String, AttributeValue> item : response.items()) {
+                points.addAll(bucketPoints(item));
             }
+            return response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                    ? queryHistory(expressionAttributeValues, response.lastEvaluatedKey(), points)
+                    : CompletableFuture.completedFuture(points);
+        });
+    }
 
-        } catch (Exception e) {
-            log.error("Error getting crypto price for {}: {}", symbol, e.getMessage());
+    // Volume and market cap are null on points read with the price-only projection
+    private static List<PricePoint> bucketPoints(Map<String, AttributeValue> item) {
+        long bucket = Long.parseLong(item.get("bucket").n());
+        List<AttributeValue> offsets = item.get("t").l();
+        List<AttributeValue> prices = item.get("p").l();
+        List<AttributeValue> volumes = item.containsKey("v") ? item.get("v").l() : null;
+        List<AttributeValue> marketCaps = item.containsKey("c") ? item.get("c").l() : null;
+        List<PricePoint> points = new ArrayList<>(offsets.size());
+        for (int i = 0; i < offsets.size(); i++) {
+            points.add(new PricePoint(
+                    bucket + Long.parseLong(offsets.get(i).n()) * 1000,
+                    new BigDecimal(prices.get(i).n()),
+                    volumes == null ? null : new BigDecimal(volumes.get(i).n()),
+                    marketCaps == null ? null : new BigDecimal(marketCaps.get(i).n())));
         }
+        return points;
+    }
 
-        return null;
+    /**
+     * The newest tick recorded for a coin, read from its latest history
+     * bucket, or null if it has none. Only price, volume and market cap are
+     * kept there; last_updated is the tick's own time, so callers can tell
+     * how stale it is.
+     */
+    public CompletableFuture<CryptoPrice> getLatestFromHistoryAsync(String symbol) {
+        return latestFromHistory(symbol, HISTORY_PROJECTION, HISTORY_NAMES);
     }
 
-    private CryptoPrice mapToCryptoPrice(Map<String, AttributeValue> item) {
-        CryptoPrice cryptoPrice = new CryptoPrice();
+    // Same tick, reading only the offsets and prices a quote needs
+    public CompletableFuture<PriceQuote> getLatestQuoteFromHistoryAsync(String symbol) {
+        return latestFromHistory(symbol, HISTORY_PRICE_PROJECTION, HISTORY_PRICE_NAMES)
+                .thenApply(cryptoPrice -> cryptoPrice == null ? null : PriceQuote.of(cryptoPrice));
+    }
 
-        cryptoPrice.setSymbol(item.get("symbol").s());
-        if (item.containsKey("coinId")) {
-            cryptoPrice.setCoinId(item.get("coinId").s());
-        }
-        if (item.containsKey("name")) {
-            cryptoPrice.setName(item.get("name").s());
-        }
-        if (item.containsKey("image")) {
-            cryptoPrice.setImage(item.get("image").s());
-        }
-        cryptoPrice.setCurrentPrice(new BigDecimal(item.get("current_price").n()));
-        cryptoPrice.setPriceChangePercentage1h(new BigDecimal(item.get("price_change_percentage_1h").n()));
-        cryptoPrice.setPriceChangePercentage24h(new BigDecimal(item.get("price_change_percentage_24h").n()));
-        cryptoPrice.setPriceChangePercentage7d(new BigDecimal(item.get("price_change_percentage_7d").n()));
-        cryptoPrice.setTotalVolume(new BigDecimal(item.get("total_volume").n()));
-        cryptoPrice.setMarketCap(new BigDecimal(item.get("market_cap").n()));
-        cryptoPrice.setMarketCapRank(Integer.parseInt(item.get("market_cap_rank").n()));
-        if (item.containsKey("sparkline_7d")) {
-            cryptoPrice.setSparkline7d(item.get("sparkline_7d").s());
-        }
+    private CompletableFuture<CryptoPrice> latestFromHistory(String symbol, String projection,
+                                                             Map<String, String> expressionAttributeNames) {
+        QueryRequest request = QueryRequest.builder()
+                .tableName(priceHistoryTableName)
+                .keyConditionExpression("symbol = :symbol")
+                .projectionExpression(projection)
+                .expressionAttributeNames(expressionAttributeNames)
+                .expressionAttributeValues(Map.of(":symbol", AttributeValue.builder().s(symbol.toUpperCase()).build()))
+                .scanIndexForward(false)
+                .limit(1)
+                .build();
 
-        return cryptoPrice;
+        return dynamoDbAsyncClient.query(request)
+                .thenApply(response -> {
+                    List<PricePoint> points = response.items().isEmpty() ? List.of() : bucketPoints(response.items().get(0));
+                    if (points.isEmpty()) {
+                        return null;
+                    }
+                    PricePoint latest = points.get(points.size() - 1);
+                    CryptoPrice cryptoPrice = new CryptoPrice();
+                    cryptoPrice.setSymbol(symbol.toUpperCase());
+                    cryptoPrice.setCurrentPrice(latest.price());
+                    cryptoPrice.setTotalVolume(latest.totalVolume());
+                    cryptoPrice.setMarketCap(latest.marketCap());
+                    cryptoPrice.setLastUpdated(LocalDateTime.ofInstant(Instant.ofEpochMilli(latest.timestamp()), ZoneOffset.UTC));
+                    return cryptoPrice;
+                })
+                .exceptionally(error -> {
+                    log.error("Error reading latest history for {}: {}", symbol, Futures.unwrap(error).getMessage());
+                    return null;
+                });
     }
 }
@@ -0,0 +1,29 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Helpers for the blocking wrappers around the async data-access methods.
+ */
+public final class Futures {
+
+    private Futures() {
+    }
+
+    // Like join(), but rethrows the original runtime exception so callers see the same errors as before
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
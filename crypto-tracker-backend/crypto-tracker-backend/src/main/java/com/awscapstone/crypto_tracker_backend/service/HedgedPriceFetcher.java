@@ -0,0 +1,238 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.source.PriceSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Fetches a snapshot from the primary {@link PriceSource}. If the primary
+ * has not answered by its recent latency percentile, the secondary is
+ * fired as well and the first successful answer wins. When both have
+ * answered, their results are merged field by field.
+ */
+@Service
+@Slf4j
+public class HedgedPriceFetcher {
+
+    private static final int LATENCY_SAMPLES = 128;
+
+    private final PriceSource primary;
+    private final PriceSource secondary;
+    private final CloudWatchService cloudWatchService;
+    private final int hedgePercentile;
+    private final long minHedgeDelayMs;
+    private final long initialHedgeDelayMs;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final long[] primaryLatencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+    private int nextLatency;
+
+    public HedgedPriceFetcher(List<PriceSource> priceSources,
+                              CloudWatchService cloudWatchService,
+                              @Value("${price-source.primary:coingecko}") String primaryName,
+                              @Value("${price-source.secondary:}") String secondaryName,
+                              @Value("${price-source.hedge.percentile:95}") int hedgePercentile,
+                              @Value("${price-source.hedge.min-delay-ms:500}") long minHedgeDelayMs,
+                              @Value("${price-source.hedge.initial-delay-ms:5000}") long initialHedgeDelayMs) {
+        Map<String, PriceSource> sources = priceSources.stream()
+                .collect(Collectors.toMap(PriceSource::getName, Function.identity()));
+
+        this.primary = sources.get(primaryName);
+        if (this.primary == null) {
+            throw new IllegalStateException("Unknown primary price source: " + primaryName + " (available: " + sources.keySet() + ")");
+        }
+
+        PriceSource configuredSecondary = null;
+        if (secondaryName != null && !secondaryName.isBlank() && !secondaryName.equals(primaryName)) {
+            configuredSecondary = sources.get(secondaryName);
+            if (configuredSecondary == null) {
+                log.warn("Secondary price source {} is not available, hedging disabled", secondaryName);
+            }
+        }
+        this.secondary = configuredSecondary;
+        this.cloudWatchService = cloudWatchService;
+        this.hedgePercentile = hedgePercentile;
+        this.minHedgeDelayMs = minHedgeDelayMs;
+        this.initialHedgeDelayMs = initialHedgeDelayMs;
+
+        log.info("Price source: primary={}, secondary={}", primary.getName(),
+                secondary != null ? secondary.getName() : "none");
+    }
+
+    public List<CryptoPrice> fetchPrices() {
+        return fetch(PriceSource::fetchPrices);
+    }
+
+    // Hedges any request that can be expressed against a PriceSource, e.g. a rank range or an id batch
+    public List<CryptoPrice> fetch(Function<PriceSource, List<CryptoPrice>> request) {
+        if (secondary == null) {
+            return fetchPrimary(request);
+        }
+
+        CompletableFuture<List<CryptoPrice>> primaryCall = CompletableFuture.supplyAsync(() -> fetchPrimary(request), executor);
+        long hedgeDelayMs = hedgeDelayMs();
+
+        try {
+            return primaryCall.get(hedgeDelayMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.info("Primary source {} slower than {} ms, hedging with {}", primary.getName(), hedgeDelayMs, secondary.getName());
+        } catch (ExecutionException e) {
+            log.warn("Primary source {} failed, falling back to {}: {}", primary.getName(), secondary.getName(), e.getCause().getMessage());
+            cloudWatchService.publishMetric("PriceSourceFallback", 1, "Count");
+            return request.apply(secondary);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while fetching prices", e);
+        }
+
+        cloudWatchService.publishMetric("PriceSourceHedged", 1, "Count");
+        CompletableFuture<List<CryptoPrice>> secondaryCall = CompletableFuture.supplyAsync(() -> request.apply(secondary), executor);
+
+        try {
+            List<CryptoPrice> winner = firstSuccessful(primaryCall, secondaryCall).get();
+            boolean primaryWon = primaryCall.isDone() && !primaryCall.isCompletedExceptionally() && primaryCall.join() == winner;
+            if (!primaryWon) {
+                cloudWatchService.publishMetric("PriceSourceHedgeWins", 1, "Count");
+            }
+
+            // If the other side has also answered by now, fold its fields in rather than discard them
+            if (primaryWon && succeeded(secondaryCall)) {
+                return merge(winner, secondaryCall.join());
+            }
+            if (!primaryWon && succeeded(primaryCall)) {
+                return merge(primaryCall.join(), winner);
+            }
+            return winner;
+
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to fetch cryptocurrency data from any source", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while fetching prices", e);
+        }
+    }
+
+    /**
+     * Merges two snapshots. Market fields come from whichever side reported
+     * the more recent last_updated; descriptive fields come from the
+     * preferred side and fall back to the other when missing.
+     */
+    public static List<CryptoPrice> merge(List<CryptoPrice> preferred, List<CryptoPrice> other) {
+        Map<String, CryptoPrice> merged = new LinkedHashMap<>();
+        for (CryptoPrice cryptoPrice : preferred) {
+            merged.put(cryptoPrice.getCoinId(), cryptoPrice);
+        }
+        for (CryptoPrice fallback : other) {
+            CryptoPrice target = merged.get(fallback.getCoinId());
+            if (target == null) {
+                merged.put(fallback.getCoinId(), fallback);
+            } else {
+                mergeInto(target, fallback);
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static void mergeInto(CryptoPrice target, CryptoPrice fallback) {
+        boolean fallbackFresher = target.getLastUpdated() == null
+                || (fallback.getLastUpdated() != null && fallback.getLastUpdated().isAfter(target.getLastUpdated()));
+        if (fallbackFresher) {
+            target.setCurrentPrice(fallback.getCurrentPrice());
+            target.setPriceChangePercentage1h(fallback.getPriceChangePercentage1h());
+            target.setPriceChangePercentage24h(fallback.getPriceChangePercentage24h());
+            target.setPriceChangePercentage7d(fallback.getPriceChangePercentage7d());
+            target.setTotalVolume(fallback.getTotalVolume());
+            target.setMarketCap(fallback.getMarketCap());
+            target.setLastUpdated(fallback.getLastUpdated());
+        }
+
+        if (target.getName() == null) {
+            target.setName(fallback.getName());
+        }
+        if (target.getImage() == null) {
+            target.setImage(fallback.getImage());
+        }
+        if (target.getMarketCapRank() == null || target.getMarketCapRank() == 0) {
+            target.setMarketCapRank(fallback.getMarketCapRank());
+        }
+        if (target.getCirculatingSupply() == null) {
+            target.setCirculatingSupply(fallback.getCirculatingSupply());
+        }
+        if (target.getMaxSupply() == null) {
+            target.setMaxSupply(fallback.getMaxSupply());
+        }
+        if (target.getAth() == null) {
+            target.setAth(fallback.getAth());
+            target.setAthChangePercentage(fallback.getAthChangePercentage());
+        }
+        if (target.getSparkline7d() == null || target.getSparkline7d().isEmpty()) {
+            target.setSparkline7d(fallback.getSparkline7d());
+        }
+    }
+
+    private List<CryptoPrice> fetchPrimary(Function<PriceSource, List<CryptoPrice>> request) {
+        long start = System.currentTimeMillis();
+        List<CryptoPrice> result = request.apply(primary);
+        recordPrimaryLatency(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    private synchronized void recordPrimaryLatency(long latencyMs) {
+        primaryLatencies[nextLatency] = latencyMs;
+        nextLatency = (nextLatency + 1) % LATENCY_SAMPLES;
+        latencyCount = Math.min(latencyCount + 1, LATENCY_SAMPLES);
+    }
+
+    private synchronized long hedgeDelayMs() {
+        if (latencyCount == 0) {
+            return initialHedgeDelayMs;
+        }
+        long[] sorted = Arrays.copyOf(primaryLatencies, latencyCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(hedgePercentile / 100.0 * latencyCount) - 1;
+        return Math.max(minHedgeDelayMs, sorted[Math.max(0, Math.min(index, latencyCount - 1))]);
+    }
+
+    private static boolean succeeded(CompletableFuture<?> future) {
+        return future.isDone() && !future.isCompletedExceptionally();
+    }
+
+    private static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> first, CompletableFuture<T> second) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<T> future : List.of(first, second)) {
+            future.whenComplete((value, error) -> {
+                if (error == null) {
+                    result.complete(value);
+                } else if (failures.incrementAndGet() == 2) {
+                    result.completeExceptionally(error);
+                }
+            });
+        }
+        return result;
+    }
+}
@@ -0,0 +1,371 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.model.PriceSnapshot;
+import com.awscapstone.crypto_tracker_backend.model.Sparkline;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the latest price of every coin as one compressed snapshot, so
+ * listing prices costs the same no matter how much history has been
+ * stored.
+ * <p>
+ * Each snapshot is written as a new generation of chunk items (DynamoDB
+ * caps an item at 400 KB) and only then made current by moving a small
+ * pointer item to it. Readers fetch the pointer and, if the generation
+ * has changed since their last read, the chunks; a reader never sees a
+ * half-written snapshot. The generation before the previous one is
+ * deleted, so a reader that is mid-way through the previous one still
+ * finds it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LatestPriceService {
+
+    private static final String POINTER_ID = "latest";
+    // Version 2 leaves name and image to the coin metadata table; version 3 widens decimal lengths and scales
+    private static final byte FORMAT_VERSION = 3;
+    private static final int NULL_DECIMAL = 0xFFFF;
+    private static final long ORPHAN_TTL_SECONDS = TimeUnit.DAYS.toSeconds(1);
+
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+    private final CloudWatchService cloudWatchService;
+    private final CoinMetadataService coinMetadataService;
+    private final WriteRateController writeRateController;
+
+    @Qualifier("latestPricesTableName")
+    private final String latestPricesTableName;
+
+    @Value("${latest-prices.chunk-bytes:350000}")
+    private int chunkBytes;
+
+    private final AtomicReference<PriceSnapshot> cached = new AtomicReference<>();
+    private final AtomicLong lastPublished = new AtomicLong();
+
+    public CompletableFuture<Void> publishAsync(PriceSnapshot snapshot) {
+        if (snapshot == null || snapshot.prices().isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Generations are timestamps; bump on collisions so two publishes in one millisecond stay ordered
+        long generation = lastPublished.updateAndGet(previous -> Math.max(previous + 1, snapshot.fetchedAt().toEpochMilli()));
+        byte[] encoded = encode(snapshot.prices());
+        List<WriteRequest> chunks = new ArrayList<>();
+        for (int from = 0, index = 0; from < encoded.length; from += chunkBytes, index++) {
+            byte[] chunk = Arrays.copyOfRange(encoded, from, Math.min(encoded.length, from + chunkBytes));
+            chunks.add(WriteRequest.builder()
+                    .putRequest(PutRequest.builder().item(Map.of(
+                            "id", AttributeValue.builder().s(chunkPartition(generation)).build(),
+                            "chunk", AttributeValue.builder().n(String.valueOf(index)).build(),
+                            "data", AttributeValue.builder().b(SdkBytes.fromByteArrayUnsafe(chunk)).build(),
+                            // Generations are normally deleted once replaced; this only catches ones left behind
+                            RetentionService.TTL_ATTRIBUTE, AttributeValue.builder().n(String.valueOf(generation / 1000 + ORPHAN_TTL_SECONDS)).build()))
+                            .build())
+                    .build());
+        }
+
+        CompletableFuture<Void> written = CompletableFuture.completedFuture(null);
+        // Chunks are large, so a batch of a few already approaches the 16 MB request limit
+        for (int from = 0; from < chunks.size(); from += 10) {
+            List<WriteRequest> batch = chunks.subList(from, Math.min(chunks.size(), from + 10));
+            written = written.thenCompose(ignored -> writeChunks(Map.of(latestPricesTableName, batch), 1));
+        }
+
+        return written
+                .thenCompose(ignored -> movePointer(generation, chunks.size(), snapshot.prices().size()))
+                .thenCompose(previous -> previous > 0 ? deleteGeneration(previous) : CompletableFuture.completedFuture(null))
+                .thenRun(() -> {
+                    log.debug("Published latest prices generation {}: {} coins, {} bytes in {} chunks",
+                            generation, snapshot.prices().size(), encoded.length, chunks.size());
+                    cloudWatchService.publishMetric("LatestPricesBytes", encoded.length, "Bytes");
+                });
+    }
+
+    // Best effort: a failed publish leaves the previous generation in place
+    public void publish(PriceSnapshot snapshot) {
+        try {
+            Futures.await(publishAsync(snapshot));
+        } catch (Exception e) {
+            log.warn("Failed to publish latest prices: {}", e.getMessage());
+            cloudWatchService.publishMetric("LatestPricesPublishErrors", 1, "Count");
+        }
+    }
+
+    // Returns null when nothing has been published yet
+    public CompletableFuture<PriceSnapshot> getLatestAsync() {
+        return dynamoDbAsyncClient.getItem(GetItemRequest.builder()
+                        .tableName(latestPricesTableName)
+                        .key(key(POINTER_ID, 0))
+                        .build())
+                .thenCompose(response -> {
+                    if (!response.hasItem() || response.item().isEmpty()) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    long generation = Long.parseLong(response.item().get("generation").n());
+                    int chunkCount = Integer.parseInt(response.item().get("chunks").n());
+
+                    PriceSnapshot current = cached.get();
+                    if (current != null && current.fetchedAt().toEpochMilli() == generation) {
+                        return CompletableFuture.completedFuture(current);
+                    }
+                    return readChunks(generation, null, new ArrayList<>())
+                            .thenCompose(chunks -> {
+                                if (chunks.size() != chunkCount) {
+                                    throw new IllegalStateException("Latest prices generation " + generation + " has "
+                                            + chunks.size() + " of " + chunkCount + " chunks");
+                                }
+                                return coinMetadataService.joinAllAsync(decode(chunks));
+                            })
+                            .thenApply(prices -> {
+                                PriceSnapshot snapshot = new PriceSnapshot(prices, Instant.ofEpochMilli(generation));
+                                cached.accumulateAndGet(snapshot, (a, b) ->
+                                        a == null || b.fetchedAt().isAfter(a.fetchedAt()) ? b : a);
+                                return snapshot;
+                            });
+                });
+    }
+
+    public PriceSnapshot getLatest() {
+        return Futures.await(getLatestAsync());
+    }
+
+    private CompletableFuture<Void> writeChunks(Map<String, List<WriteRequest>> pending, int attempt) {
+        BatchWriteItemRequest request = BatchWriteItemRequest.builder().requestItems(pending).build();
+        return writeRateController.submit(WriteRateController.Flow.LATEST_PRICES, () -> dynamoDbAsyncClient.batchWriteItem(request),
+                        WriteRateController::hasUnprocessedItems)
+                .thenCompose(response -> {
+                    if (!response.hasUnprocessedItems() || response.unprocessedItems().isEmpty()) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    if (attempt >= 5) {
+                        throw new IllegalStateException("Latest prices chunks still unprocessed after " + attempt + " attempts");
+                    }
+                    return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(100L << attempt, TimeUnit.MILLISECONDS))
+                            .thenCompose(ignored -> writeChunks(response.unprocessedItems(), attempt + 1));
+                });
+    }
+
+    // Returns the generation that is no longer reachable by any reader, or 0 if there is none
+    private CompletableFuture<Long> movePointer(long generation, int chunkCount, int coins) {
+        return writeRateController.submit(WriteRateController.Flow.LATEST_PRICES, () -> dynamoDbAsyncClient.updateItem(UpdateItemRequest.builder()
+                        .tableName(latestPricesTableName)
+                        .key(key(POINTER_ID, 0))
+                        .updateExpression("SET previous = if_not_exists(generation, :zero), generation = :generation, "
+                                + "chunks = :chunks, coins = :coins")
+                        // Another instance may have published a newer snapshot in the meantime
+                        .conditionExpression("attribute_not_exists(generation) OR generation < :generation")
+                        .expressionAttributeValues(Map.of(
+                                ":zero", AttributeValue.builder().n("0").build(),
+                                ":generation", AttributeValue.builder().n(String.valueOf(generation)).build(),
+                                ":chunks", AttributeValue.builder().n(String.valueOf(chunkCount)).build(),
+                                ":coins", AttributeValue.builder().n(String.valueOf(coins)).build()))
+                        .returnValues(ReturnValue.ALL_OLD)
+                        .build()))
+                .thenApply(response -> response.hasAttributes() && response.attributes().containsKey("previous")
+                        ? Long.parseLong(response.attributes().get("previous").n()) : 0L)
+                .exceptionally(error -> {
+                    if (Futures.unwrap(error) instanceof ConditionalCheckFailedException) {
+                        // Nobody ever read this generation, so it can go straight away
+                        log.debug("Latest prices generation {} superseded before it was published", generation);
+                        return generation;
+                    }
+                    throw new RuntimeException("Failed to publish latest prices", Futures.unwrap(error));
+                });
+    }
+
+    // Cleanup is best effort; a leftover generation is only wasted storage
+    private CompletableFuture<Void> deleteGeneration(long generation) {
+        return dynamoDbAsyncClient.query(QueryRequest.builder()
+                        .tableName(latestPricesTableName)
+                        .keyConditionExpression("id = :id")
+                        .expressionAttributeValues(Map.of(":id", AttributeValue.builder().s(chunkPartition(generation)).build()))
+                        .projectionExpression("id, chunk")
+                        .build())
+                .thenCompose(response -> {
+                    if (response.items().isEmpty()) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    List<WriteRequest> deletes = response.items().stream()
+                            .map(item -> WriteRequest.builder().deleteRequest(DeleteRequest.builder().key(item).build()).build())
+                            .toList();
+                    CompletableFuture<Void> deleted = CompletableFuture.completedFuture(null);
+                    for (int from = 0; from < deletes.size(); from += 25) {
+                        List<WriteRequest> batch = deletes.subList(from, Math.min(deletes.size(), from + 25));
+                        deleted = deleted.thenCompose(ignored -> writeChunks(Map.of(latestPricesTableName, batch), 1));
+                    }
+                    return deleted;
+                })
+                .exceptionally(error -> {
+                    log.debug("Failed to delete latest prices generation {}: {}", generation, Futures.unwrap(error).getMessage());
+                    return null;
+                });
+    }
+
+    private CompletableFuture<List<byte[]>> readChunks(long generation, Map<String, AttributeValue> startKey, List<byte[]> chunks) {
+        return dynamoDbAsyncClient.query(QueryRequest.builder()
+                        .tableName(latestPricesTableName)
+                        .keyConditionExpression("id = :id")
+                        .expressionAttributeValues(Map.of(":id", AttributeValue.builder().s(chunkPartition(generation)).build()))
+                        .exclusiveStartKey(startKey)
+                        .build())
+                .thenCompose(response -> {
+                    response.items().forEach(item -> chunks.add(item.get("data").b().asByteArrayUnsafe()));
+                    if (response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()) {
+                        return readChunks(generation, response.lastEvaluatedKey(), chunks);
+                    }
+                    return CompletableFuture.completedFuture(chunks);
+                });
+    }
+
+    private static String chunkPartition(long generation) {
+        return POINTER_ID + "#" + generation;
+    }
+
+    private static Map<String, AttributeValue> key(String id, int chunk) {
+        return Map.of(
+                "id", AttributeValue.builder().s(id).build(),
+                "chunk", AttributeValue.builder().n(String.valueOf(chunk)).build());
+    }
+
+    static byte[] encode(List<CryptoPrice> prices) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(prices.size() * 256);
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(prices.size());
+            for (CryptoPrice price : prices) {
+                writeString(out, price.getCoinId());
+                writeString(out, price.getSymbol());
+                writeDecimal(out, price.getCurrentPrice());
+                writeDecimal(out, price.getPriceChangePercentage1h());
+                writeDecimal(out, price.getPriceChangePercentage24h());
+                writeDecimal(out, price.getPriceChangePercentage7d());
+                writeDecimal(out, price.getTotalVolume());
+                writeDecimal(out, price.getMarketCap());
+                out.writeInt(price.getMarketCapRank() != null ? price.getMarketCapRank() : 0);
+                writeDecimal(out, price.getCirculatingSupply());
+                writeDecimal(out, price.getMaxSupply());
+                writeDecimal(out, price.getAth());
+                writeDecimal(out, price.getAthChangePercentage());
+                byte[] sparkline = price.getSparkline7d() != null ? price.getSparkline7d().toBytes() : new byte[0];
+                out.writeInt(sparkline.length);
+                out.write(sparkline);
+                out.writeLong(price.getLastUpdated() != null ? price.getLastUpdated().toInstant(ZoneOffset.UTC).toEpochMilli() : -1);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<CryptoPrice> decode(List<byte[]> chunks) {
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        chunks.forEach(joined::writeBytes);
+
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(joined.toByteArray())))) {
+            byte version = in.readByte();
+            if (version < 1 || version > FORMAT_VERSION) {
+                throw new IllegalStateException("Unknown latest prices format " + version);
+            }
+            int count = in.readInt();
+            List<CryptoPrice> prices = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                CryptoPrice price = new CryptoPrice();
+                price.setCoinId(readString(in));
+                price.setSymbol(readString(in));
+                if (version == 1) {
+                    price.setName(readString(in));
+                    price.setImage(readString(in));
+                }
+                price.setCurrentPrice(readDecimal(in, version));
+                price.setPriceChangePercentage1h(readDecimal(in, version));
+                price.setPriceChangePercentage24h(readDecimal(in, version));
+                price.setPriceChangePercentage7d(readDecimal(in, version));
+                price.setTotalVolume(readDecimal(in, version));
+                price.setMarketCap(readDecimal(in, version));
+                price.setMarketCapRank(in.readInt());
+                price.setCirculatingSupply(readDecimal(in, version));
+                price.setMaxSupply(readDecimal(in, version));
+                price.setAth(readDecimal(in, version));
+                price.setAthChangePercentage(readDecimal(in, version));
+                byte[] sparkline = new byte[in.readInt()];
+                in.readFully(sparkline);
+                price.setSparkline7d(Sparkline.fromBytes(sparkline));
+                long lastUpdated = in.readLong();
+                if (lastUpdated >= 0) {
+                    price.setLastUpdated(LocalDateTime.ofEpochSecond(lastUpdated / 1000, (int) (lastUpdated % 1000) * 1_000_000, ZoneOffset.UTC));
+                }
+                prices.add(price);
+            }
+            return prices;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // Unscaled value and scale, so prices round-trip exactly
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        if (value == null) {
+            out.writeShort(NULL_DECIMAL);
+            return;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        if (unscaled.length >= NULL_DECIMAL) {
+            throw new IllegalArgumentException("Decimal too large for the latest prices format: " + unscaled.length + " bytes");
+        }
+        out.writeShort(unscaled.length);
+        out.write(unscaled);
+        out.writeInt(value.scale());
+    }
+
+    // Versions 1 and 2 wrote the length as a signed byte and the scale as a short
+    private static BigDecimal readDecimal(DataInputStream in, byte version) throws IOException {
+        int length = version < 3 ? in.readByte() : in.readUnsignedShort();
+        if (length < 0 || length == NULL_DECIMAL) {
+            return null;
+        }
+        byte[] unscaled = new byte[length];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), version < 3 ? in.readShort() : in.readInt());
+    }
+}
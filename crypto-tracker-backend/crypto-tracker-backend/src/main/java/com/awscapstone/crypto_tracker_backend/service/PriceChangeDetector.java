@@ -0,0 +1,68 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers what was last ingested for each coin so that ticks where
+ * CoinGecko has not refreshed a coin can skip the store and alert stages.
+ */
+@Component
+@Slf4j
+public class PriceChangeDetector {
+
+    private final Map<String, Fingerprint> lastIngested = new ConcurrentHashMap<>();
+
+    public List<CryptoPrice> filterChanged(List<CryptoPrice> cryptoPrices) {
+        List<CryptoPrice> changed = new ArrayList<>(cryptoPrices.size());
+        for (CryptoPrice cryptoPrice : cryptoPrices) {
+            if (!Fingerprint.of(cryptoPrice).equals(lastIngested.get(key(cryptoPrice)))) {
+                changed.add(cryptoPrice);
+            }
+        }
+        log.debug("{} of {} cryptocurrencies changed since last tick", changed.size(), cryptoPrices.size());
+        return changed;
+    }
+
+    // Only record coins once they have made it through the pipeline, so a failed tick is retried
+    public void markIngested(List<CryptoPrice> cryptoPrices) {
+        for (CryptoPrice cryptoPrice : cryptoPrices) {
+            lastIngested.put(key(cryptoPrice), Fingerprint.of(cryptoPrice));
+        }
+    }
+
+    private String key(CryptoPrice cryptoPrice) {
+        return cryptoPrice.getCoinId() != null ? cryptoPrice.getCoinId() : cryptoPrice.getSymbol();
+    }
+
+    private record Fingerprint(LocalDateTime lastUpdated,
+                               BigDecimal currentPrice,
+                               BigDecimal priceChangePercentage1h,
+                               BigDecimal priceChangePercentage24h,
+                               BigDecimal priceChangePercentage7d,
+                               BigDecimal totalVolume,
+                               BigDecimal marketCap,
+                               Integer marketCapRank) {
+
+        static Fingerprint of(CryptoPrice cryptoPrice) {
+            return new Fingerprint(
+                    cryptoPrice.getLastUpdated(),
+                    cryptoPrice.getCurrentPrice(),
+                    cryptoPrice.getPriceChangePercentage1h(),
+                    cryptoPrice.getPriceChangePercentage24h(),
+                    cryptoPrice.getPriceChangePercentage7d(),
+                    cryptoPrice.getTotalVolume(),
+                    cryptoPrice.getMarketCap(),
+                    cryptoPrice.getMarketCapRank()
+            );
+        }
+    }
+}
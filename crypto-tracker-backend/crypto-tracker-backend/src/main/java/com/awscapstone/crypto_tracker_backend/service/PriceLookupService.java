@@ -0,0 +1,129 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.model.PriceQuote;
+import com.awscapstone.crypto_tracker_backend.model.PriceSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Resolves the latest prices of many symbols at once. Symbols are looked
+ * up in the newest of the in-memory snapshot and the stored latest-price
+ * view; only symbols neither of them knows fall back to the newest tick
+ * in their price history, and those queries are all issued together.
+ * Fallback results carry only price, volume and market cap, with
+ * last_updated set to when that tick was recorded.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PriceLookupService {
+
+    private record SymbolIndex(PriceSnapshot snapshot, Map<String, CryptoPrice> bySymbol) {
+    }
+
+    private final PriceSnapshotService priceSnapshotService;
+    private final LatestPriceService latestPriceService;
+    private final DynamoDBService dynamoDBService;
+    private final CloudWatchService cloudWatchService;
+
+    private final AtomicReference<SymbolIndex> index = new AtomicReference<>();
+
+    // Prices in the order of the given symbols; symbols without any price are left out
+    public CompletableFuture<List<CryptoPrice>> getPricesBySymbolsAsync(List<String> symbols) {
+        return lookup(symbols, known -> known, dynamoDBService::getLatestFromHistoryAsync);
+    }
+
+    // Same as getPricesBySymbolsAsync, but fallback queries only read the tick prices
+    public CompletableFuture<List<PriceQuote>> getQuotesBySymbolsAsync(List<String> symbols) {
+        return lookup(symbols, PriceQuote::of, dynamoDBService::getLatestQuoteFromHistoryAsync);
+    }
+
+    private <T> CompletableFuture<List<T>> lookup(List<String> symbols, Function<CryptoPrice, T> fromKnown,
+                                                  Function<String, CompletableFuture<T>> fallback) {
+        if (symbols.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+
+        return latestPriceService.getLatestAsync()
+                .exceptionally(error -> {
+                    log.debug("Latest price view unavailable, using the in-memory snapshot: {}", Futures.unwrap(error).getMessage());
+                    return null;
+                })
+                .thenCompose(stored -> {
+                    Map<String, CryptoPrice> bySymbol = indexFor(newest(stored, priceSnapshotService.getLastKnownGood()));
+
+                    Map<String, CompletableFuture<T>> lookups = new LinkedHashMap<>();
+                    for (String symbol : symbols) {
+                        String key = symbol.toUpperCase();
+                        CryptoPrice known = bySymbol.get(key);
+                        lookups.computeIfAbsent(key, ignored -> known != null
+                                ? CompletableFuture.completedFuture(fromKnown.apply(known))
+                                : fallback.apply(key));
+                    }
+
+                    long fallbacks = lookups.keySet().stream().filter(key -> !bySymbol.containsKey(key)).count();
+                    if (fallbacks > 0) {
+                        cloudWatchService.publishMetric("PriceLookupFallbacks", fallbacks, "Count");
+                    }
+
+                    return CompletableFuture.allOf(lookups.values().toArray(CompletableFuture[]::new))
+                            .thenApply(ignored -> {
+                                List<T> prices = new ArrayList<>(lookups.size());
+                                for (CompletableFuture<T> lookup : lookups.values()) {
+                                    T price = lookup.join();
+                                    if (price != null) {
+                                        prices.add(price);
+                                    }
+                                }
+                                return prices;
+                            });
+                });
+    }
+
+    public List<CryptoPrice> getPricesBySymbols(List<String> symbols) {
+        return Futures.await(getPricesBySymbolsAsync(symbols));
+    }
+
+    public List<PriceQuote> getQuotesBySymbols(List<String> symbols) {
+        return Futures.await(getQuotesBySymbolsAsync(symbols));
+    }
+
+    private static PriceSnapshot newest(PriceSnapshot a, PriceSnapshot b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.fetchedAt().isAfter(b.fetchedAt()) ? a : b;
+    }
+
+    // Rebuilt only when the snapshot changes, not on every request
+    private Map<String, CryptoPrice> indexFor(PriceSnapshot snapshot) {
+        if (snapshot == null) {
+            return Map.of();
+        }
+        SymbolIndex current = index.get();
+        if (current != null && current.snapshot() == snapshot) {
+            return current.bySymbol();
+        }
+
+        // Snapshots are in rank order, so a shared symbol resolves to the larger coin
+        Map<String, CryptoPrice> bySymbol = new HashMap<>(snapshot.prices().size() * 2);
+        for (CryptoPrice price : snapshot.prices()) {
+            if (price.getSymbol() != null) {
+                bySymbol.putIfAbsent(price.getSymbol().toUpperCase(), price);
+            }
+        }
+        index.set(new SymbolIndex(snapshot, bySymbol));
+        return bySymbol;
+    }
+}
@@ -0,0 +1,169 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.exception.UpstreamUnavailableException;
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.model.PriceSnapshot;
+import com.awscapstone.crypto_tracker_backend.source.PriceSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Guards upstream fetches with a circuit breaker and keeps the last known
+ * good snapshot. Readers get that snapshot immediately, even when it is
+ * stale, while a single background call revalidates it.
+ */
+@Service
+@Slf4j
+public class PriceSnapshotService {
+
+    private final HedgedPriceFetcher priceFetcher;
+    private final CloudWatchService cloudWatchService;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration maxAge;
+
+    private final AtomicReference<PriceSnapshot> lastGood = new AtomicReference<>();
+    private final AtomicBoolean revalidating = new AtomicBoolean();
+    private final ReentrantLock initialFetchLock = new ReentrantLock();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public PriceSnapshotService(HedgedPriceFetcher priceFetcher,
+                                CloudWatchService cloudWatchService,
+                                @Value("${upstream.circuit-breaker.failure-threshold:3}") int failureThreshold,
+                                @Value("${upstream.circuit-breaker.open-duration-ms:60000}") long openDurationMs,
+                                @Value("${upstream.snapshot.max-age-ms:60000}") long maxAgeMs) {
+        this.priceFetcher = priceFetcher;
+        this.cloudWatchService = cloudWatchService;
+        this.circuitBreaker = new CircuitBreaker("price-upstream", failureThreshold, Duration.ofMillis(openDurationMs));
+        this.maxAge = Duration.ofMillis(maxAgeMs);
+    }
+
+    // Fetches through the breaker and replaces the snapshot; throws UpstreamUnavailableException while open
+    public List<CryptoPrice> refresh() {
+        List<CryptoPrice> cryptoPrices = guarded(priceFetcher::fetchPrices);
+        lastGood.set(new PriceSnapshot(cryptoPrices, Instant.now()));
+        return cryptoPrices;
+    }
+
+    // Fetches part of the coin universe and folds it into the snapshot, keeping coins that were not refetched
+    public List<CryptoPrice> refreshPartial(Function<PriceSource, List<CryptoPrice>> request) {
+        List<CryptoPrice> fetched = guarded(() -> priceFetcher.fetch(request));
+        fold(fetched);
+        return fetched;
+    }
+
+    /**
+     * Like {@link #refreshPartial} for optional lookups, such as coins only
+     * users watch. These bypass the breaker so their failures cannot open
+     * it for the main feed, but they are skipped while it is open.
+     */
+    public List<CryptoPrice> lookupPartial(Function<PriceSource, List<CryptoPrice>> request) {
+        if (circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+            throw new UpstreamUnavailableException("Circuit price-upstream is open");
+        }
+        List<CryptoPrice> fetched = priceFetcher.fetch(request);
+        fold(fetched);
+        return fetched;
+    }
+
+    private void fold(List<CryptoPrice> fetched) {
+        lastGood.updateAndGet(previous -> {
+            Map<String, CryptoPrice> merged = new LinkedHashMap<>();
+            if (previous != null) {
+                previous.prices().forEach(price -> merged.put(price.getCoinId(), price));
+            }
+            fetched.forEach(price -> merged.put(price.getCoinId(), price));
+            List<CryptoPrice> prices = new ArrayList<>(merged.values());
+            prices.sort(Comparator.comparing(
+                    (CryptoPrice price) -> price.getMarketCapRank() == null || price.getMarketCapRank() == 0
+                            ? Integer.MAX_VALUE : price.getMarketCapRank()));
+            return new PriceSnapshot(prices, Instant.now());
+        });
+    }
+
+    private List<CryptoPrice> guarded(Supplier<List<CryptoPrice>> fetch) {
+        try {
+            return circuitBreaker.call(fetch);
+        } catch (UpstreamUnavailableException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            if (circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+                cloudWatchService.publishMetric("UpstreamCircuitOpen", 1, "Count");
+            }
+            throw e;
+        }
+    }
+
+    public PriceSnapshot getPrices() {
+        PriceSnapshot snapshot = lastGood.get();
+
+        if (snapshot != null) {
+            if (snapshot.isOlderThan(maxAge)) {
+                revalidateInBackground();
+            }
+            return snapshot;
+        }
+
+        // Nothing cached yet: let one request fetch while the others wait for its result
+        initialFetchLock.lock();
+        try {
+            snapshot = lastGood.get();
+            if (snapshot == null) {
+                refresh();
+                snapshot = lastGood.get();
+            }
+            return snapshot;
+        } finally {
+            initialFetchLock.unlock();
+        }
+    }
+
+    public PriceSnapshot getLastKnownGood() {
+        return lastGood.get();
+    }
+
+    public boolean isStale(PriceSnapshot snapshot) {
+        return snapshot.isOlderThan(maxAge);
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void revalidateInBackground() {
+        if (!revalidating.compareAndSet(false, true)) {
+            return;
+        }
+        executor.submit(() -> {
+            try {
+                // Merge rather than replace so coins kept fresh by other refresh paths are not dropped
+                refreshPartial(PriceSource::fetchPrices);
+            } catch (Exception e) {
+                log.debug("Background revalidation failed: {}", e.getMessage());
+            } finally {
+                revalidating.set(false);
+            }
+        });
+    }
+}
@@ -0,0 +1,268 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.model.CandleResolution;
+import com.awscapstone.crypto_tracker_backend.repository.ParallelScanner;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps stored history bounded. New items carry a TTL attribute so
+ * DynamoDB expires them on its own; items written before TTL existed are
+ * found by a parallel scan and deleted in rate-limited batches.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RetentionService {
+
+    public static final String TTL_ATTRIBUTE = "expires_at";
+
+    private static final int MAX_BATCH_DELETE_ITEMS = 25;
+
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+    private final ParallelScanner parallelScanner;
+    private final CloudWatchService cloudWatchService;
+    private final WriteRateController writeRateController;
+
+    @Qualifier("marketPricesTableName")
+    private final String marketPricesTableName;
+
+    @Qualifier("priceHistoryTableName")
+    private final String priceHistoryTableName;
+
+    @Value("${retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${retention.raw-days:30}")
+    private int rawDays;
+
+    @Value("${retention.legacy-tick-days:7}")
+    private int legacyTickDays;
+
+    @Value("${retention.candle-days.1m:7}")
+    private int oneMinuteCandleDays;
+
+    @Value("${retention.candle-days.5m:30}")
+    private int fiveMinuteCandleDays;
+
+    @Value("${retention.candle-days.1h:365}")
+    private int hourCandleDays;
+
+    @Value("${retention.candle-days.1d:0}")
+    private int dayCandleDays;
+
+    @Value("${retention.purge.max-deletes-per-second:200}")
+    private int maxDeletesPerSecond;
+
+    @Value("${retention.purge.concurrency:4}")
+    private int purgeConcurrency;
+
+    private final AtomicBoolean purging = new AtomicBoolean();
+    private final ExecutorService purgeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // TTL value (epoch seconds) for raw ticks recorded up to the given time
+    public long rawExpiry(long timestampMs) {
+        return TimeUnit.MILLISECONDS.toSeconds(timestampMs) + TimeUnit.DAYS.toSeconds(rawDays);
+    }
+
+    // TTL value (epoch seconds) for a candle ending at the given time, or 0 to keep it forever
+    public long candleExpiry(CandleResolution resolution, long endMs) {
+        int days = switch (resolution) {
+            case ONE_MINUTE -> oneMinuteCandleDays;
+            case FIVE_MINUTES -> fiveMinuteCandleDays;
+            case ONE_HOUR -> hourCandleDays;
+            case ONE_DAY -> dayCandleDays;
+        };
+        return days > 0 ? TimeUnit.MILLISECONDS.toSeconds(endMs) + TimeUnit.DAYS.toSeconds(days) : 0;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void purge() {
+        if (!enabled || !purging.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            purgeTable(priceHistoryTableName, "bucket", now - Duration.ofDays(rawDays).toMillis());
+            purgeTable(marketPricesTableName, "timestamp", now - Duration.ofDays(legacyTickDays).toMillis());
+        } finally {
+            purging.set(false);
+        }
+    }
+
+    // Deletes items without a TTL whose sort key (a millisecond timestamp) is older than the cutoff
+    private void purgeTable(String tableName, String timeKey, long cutoff) {
+        List<KeySchemaElement> keySchema;
+        try {
+            keySchema = Futures.await(dynamoDbAsyncClient.describeTable(DescribeTableRequest.builder().tableName(tableName).build()))
+                    .table().keySchema();
+        } catch (ResourceNotFoundException e) {
+            // The legacy tick table is no longer created, so newer installs have nothing to purge
+            log.debug("Retention purge of {} skipped, table does not exist", tableName);
+            return;
+        } catch (Exception e) {
+            log.error("Retention purge of {} skipped, cannot describe table: {}", tableName, e.getMessage());
+            cloudWatchService.publishMetric("RetentionPurgeErrors", 1, "Count");
+            return;
+        }
+        String hashKey = keyName(keySchema, KeyType.HASH);
+        String rangeKey = keyName(keySchema, KeyType.RANGE);
+        // Tables created by older versions may be keyed differently; deleting by a guessed key would fail every batch
+        if (hashKey == null || !timeKey.equals(rangeKey)) {
+            log.warn("Retention purge of {} skipped: expected sort key {}, table is keyed by {}", tableName, timeKey, keySchema);
+            return;
+        }
+
+        ScanRequest scanRequest = ScanRequest.builder()
+                .tableName(tableName)
+                .projectionExpression("#hash, #time")
+                .filterExpression("attribute_not_exists(#ttl) AND #time < :cutoff")
+                .expressionAttributeNames(Map.of("#hash", hashKey, "#time", timeKey, "#ttl", TTL_ATTRIBUTE))
+                .expressionAttributeValues(Map.of(":cutoff", AttributeValue.builder().n(String.valueOf(cutoff)).build()))
+                .build();
+
+        Purge purge = new Purge(tableName);
+        try {
+            // Pages are consumed on the purge's own threads, since pacing blocks the consumer
+            Futures.await(parallelScanner.scanAsync(scanRequest, purgeExecutor, purge::add));
+            purge.flush();
+            purge.awaitIdle();
+        } catch (Exception e) {
+            log.error("Retention purge of {} failed: {}", tableName, e.getMessage());
+            cloudWatchService.publishMetric("RetentionPurgeErrors", 1, "Count");
+        }
+
+        log.info("Retention purge of {}: {} expired items found, {} deleted, {} failed",
+                tableName, purge.found.get(), purge.deleted.get(), purge.failed.get());
+        cloudWatchService.publishMetric("RetentionPurgeFound", purge.found.get(), "Count");
+        cloudWatchService.publishMetric("RetentionItemsReclaimed", purge.deleted.get(), "Count");
+        cloudWatchService.publishMetric("RetentionPurgeFailed", purge.failed.get(), "Count");
+    }
+
+    private static String keyName(List<KeySchemaElement> keySchema, KeyType keyType) {
+        return keySchema.stream()
+                .filter(element -> element.keyType() == keyType)
+                .map(KeySchemaElement::attributeName)
+                .findFirst()
+                .orElse(null);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        purgeExecutor.shutdownNow();
+    }
+
+    /**
+     * Collects expired keys from the (serialized) scan consumer into delete
+     * batches. Sending blocks the purge's own consumer thread once too many
+     * batches are in flight or the delete rate is used up, which in turn
+     * holds back the scan.
+     */
+    private class Purge {
+
+        private final String tableName;
+        private final Semaphore inFlight = new Semaphore(Math.max(1, purgeConcurrency));
+        private final AtomicLong found = new AtomicLong();
+        private final AtomicLong deleted = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private List<WriteRequest> batch = new ArrayList<>(MAX_BATCH_DELETE_ITEMS);
+        private long nextSendNanos = System.nanoTime();
+
+        Purge(String tableName) {
+            this.tableName = tableName;
+        }
+
+        void add(Map<String, AttributeValue> key) {
+            found.incrementAndGet();
+            batch.add(WriteRequest.builder().deleteRequest(DeleteRequest.builder().key(key).build()).build());
+            if (batch.size() == MAX_BATCH_DELETE_ITEMS) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<WriteRequest> sending = batch;
+            batch = new ArrayList<>(MAX_BATCH_DELETE_ITEMS);
+
+            try {
+                pace(sending.size());
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Retention purge interrupted", e);
+            }
+            send(Map.of(tableName, sending), 1);
+        }
+
+        private void send(Map<String, List<WriteRequest>> requestItems, int attempt) {
+            BatchWriteItemRequest request = BatchWriteItemRequest.builder().requestItems(requestItems).build();
+            // Shares the write limit with ingestion, so a busy table slows the purge first
+            writeRateController.submit(WriteRateController.Flow.PURGE, () -> dynamoDbAsyncClient.batchWriteItem(request),
+                            WriteRateController::hasUnprocessedItems)
+                    .whenComplete((response, error) -> {
+                        int sent = requestItems.values().stream().mapToInt(List::size).sum();
+                        if (error != null) {
+                            log.debug("Retention delete batch failed: {}", Futures.unwrap(error).getMessage());
+                            failed.addAndGet(sent);
+                            inFlight.release();
+                            return;
+                        }
+                        Map<String, List<WriteRequest>> unprocessed = response.hasUnprocessedItems() ? response.unprocessedItems() : Map.of();
+                        int left = unprocessed.values().stream().mapToInt(List::size).sum();
+                        deleted.addAndGet(sent - left);
+                        if (left > 0 && attempt < 5) {
+                            // Unprocessed deletes mean the table is busy; retry them later rather than pushing harder
+                            retryLater(unprocessed, attempt);
+                            return;
+                        }
+                        failed.addAndGet(left);
+                        inFlight.release();
+                    });
+        }
+
+        private void retryLater(Map<String, List<WriteRequest>> unprocessed, int attempt) {
+            CompletableFuture.runAsync(() -> send(unprocessed, attempt + 1),
+                    CompletableFuture.delayedExecutor(100L << attempt, TimeUnit.MILLISECONDS));
+        }
+
+        // Spreads deletes evenly at the configured rate
+        private void pace(int items) throws InterruptedException {
+            long now = System.nanoTime();
+            long waitNanos = nextSendNanos - now;
+            nextSendNanos = Math.max(now, nextSendNanos) + TimeUnit.SECONDS.toNanos(items) / Math.max(1, maxDeletesPerSecond);
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+
+        void awaitIdle() throws InterruptedException {
+            int permits = Math.max(1, purgeConcurrency);
+            inFlight.acquire(permits);
+            inFlight.release(permits);
+        }
+    }
+}
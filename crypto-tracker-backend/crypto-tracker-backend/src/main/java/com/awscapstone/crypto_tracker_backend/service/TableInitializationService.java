@@ -1,12 +1,19 @@
 package com.awscapstone.crypto_tracker_backend.service;
 
+import com.awscapstone.crypto_tracker_backend.repository.TableSchemas;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -14,49 +21,132 @@ public class TableInitializationService {
 
     private final DynamoDbClient dynamoDbClient;
 
-    @Qualifier("marketPricesTableName")
-    private final String marketPricesTableName;
-
     @Qualifier("usersTableName")
     private final String usersTableName;
 
     @Qualifier("watchlistTableName")
     private final String watchlistTableName;
 
+    @Qualifier("latestPricesTableName")
+    private final String latestPricesTableName;
+
+    @Qualifier("priceHistoryTableName")
+    private final String priceHistoryTableName;
+
+    @Qualifier("candlesTableName")
+    private final String candlesTableName;
+
+    @Qualifier("coinMetadataTableName")
+    private final String coinMetadataTableName;
+
     public void createTablesIfNotExist() {
-        createMarketPricesTable();
-        createUsersTable();
-        createWatchlistTable();
+        createTableFromSchema(usersTableName, TableSchemas.USER);
+        createTableFromSchema(watchlistTableName, TableSchemas.WATCHLIST);
+        createLatestPricesTable();
+        createPriceHistoryTable();
+        createCandlesTable();
+        createTableFromSchema(coinMetadataTableName, TableSchemas.COIN_METADATA);
+
+        enableTimeToLive(latestPricesTableName);
+        enableTimeToLive(priceHistoryTableName);
+        enableTimeToLive(candlesTableName);
+    }
+
+    // Lets DynamoDB delete items once their expires_at (epoch seconds) has passed
+    private void enableTimeToLive(String tableName) {
+        try {
+            dynamoDbClient.waiter().waitUntilTableExists(DescribeTableRequest.builder().tableName(tableName).build());
+            TimeToLiveStatus status = dynamoDbClient.describeTimeToLive(DescribeTimeToLiveRequest.builder()
+                            .tableName(tableName)
+                            .build())
+                    .timeToLiveDescription()
+                    .timeToLiveStatus();
+            if (status == TimeToLiveStatus.ENABLED || status == TimeToLiveStatus.ENABLING) {
+                return;
+            }
+
+            dynamoDbClient.updateTimeToLive(UpdateTimeToLiveRequest.builder()
+                    .tableName(tableName)
+                    .timeToLiveSpecification(TimeToLiveSpecification.builder()
+                            .attributeName(RetentionService.TTL_ATTRIBUTE)
+                            .enabled(true)
+                            .build())
+                    .build());
+            log.info("Enabled TTL on {}", tableName);
+        } catch (Exception e) {
+            log.warn("Could not enable TTL on {}: {}", tableName, e.getMessage());
+        }
+    }
+
+    // Entity tables take their keys from the shared schemas, so item mapping and table layout always agree
+    private void createTableFromSchema(String tableName, TableSchema<?> schema) {
+        TableMetadata metadata = schema.tableMetadata();
+        List<KeySchemaElement> keySchema = new ArrayList<>();
+        List<AttributeDefinition> attributeDefinitions = new ArrayList<>();
+        keySchema.add(KeySchemaElement.builder().attributeName(metadata.primaryPartitionKey()).keyType(KeyType.HASH).build());
+        metadata.primarySortKey().ifPresent(sortKey ->
+                keySchema.add(KeySchemaElement.builder().attributeName(sortKey).keyType(KeyType.RANGE).build()));
+        for (KeySchemaElement key : keySchema) {
+            attributeDefinitions.add(AttributeDefinition.builder()
+                    .attributeName(key.attributeName())
+                    .attributeType(metadata.scalarAttributeType(key.attributeName()).orElseThrow())
+                    .build());
+        }
+
+        try {
+            DescribeTableRequest request = DescribeTableRequest.builder()
+                    .tableName(tableName)
+                    .build();
+            List<KeySchemaElement> existing = dynamoDbClient.describeTable(request).table().keySchema();
+            // Tables created by older versions may be keyed differently; they are left as they are
+            if (!new HashSet<>(existing).equals(new HashSet<>(keySchema))) {
+                log.warn("Table {} skipped: keyed {} but the application expects {}", tableName, existing, keySchema);
+                return;
+            }
+            log.info("Table {} already exists", tableName);
+        } catch (ResourceNotFoundException e) {
+            log.info("Creating table: {}", tableName);
+            CreateTableRequest createRequest = CreateTableRequest.builder()
+                    .tableName(tableName)
+                    .keySchema(keySchema)
+                    .attributeDefinitions(attributeDefinitions)
+                    .billingMode(BillingMode.PAY_PER_REQUEST)
+                    .build();
+
+            dynamoDbClient.createTable(createRequest);
+            log.info("Table {} created successfully", tableName);
+        }
     }
 
-    private void createMarketPricesTable() {
+    // Holds the pointer item and the chunks of the current latest-price snapshot
+    private void createLatestPricesTable() {
         try {
             DescribeTableRequest request = DescribeTableRequest.builder()
-                    .tableName(marketPricesTableName)
+                    .tableName(latestPricesTableName)
                     .build();
             dynamoDbClient.describeTable(request);
-            log.info("Table {} already exists", marketPricesTableName);
+            log.info("Table {} already exists", latestPricesTableName);
         } catch (ResourceNotFoundException e) {
-            log.info("Creating table: {}", marketPricesTableName);
+            log.info("Creating table: {}", latestPricesTableName);
             CreateTableRequest createRequest = CreateTableRequest.builder()
-                    .tableName(marketPricesTableName)
+                    .tableName(latestPricesTableName)
                     .keySchema(
                             KeySchemaElement.builder()
-                                    .attributeName("coinId")
+                                    .attributeName("id")
                                     .keyType(KeyType.HASH)
                                     .build(),
                             KeySchemaElement.builder()
-                                    .attributeName("timestamp")
+                                    .attributeName("chunk")
                                     .keyType(KeyType.RANGE)
                                     .build()
                     )
                     .attributeDefinitions(
                             AttributeDefinition.builder()
-                                    .attributeName("coinId")
+                                    .attributeName("id")
                                     .attributeType(ScalarAttributeType.S)
                                     .build(),
                             AttributeDefinition.builder()
-                                    .attributeName("timestamp")
+                                    .attributeName("chunk")
                                     .attributeType(ScalarAttributeType.N)
                                     .build()
                     )
@@ -64,77 +154,87 @@ public class TableInitializationService {
                     .build();
 
             dynamoDbClient.createTable(createRequest);
-            log.info("Table {} created successfully", marketPricesTableName);
+            log.info("Table {} created successfully", latestPricesTableName);
         }
     }
 
-    private void createUsersTable() {
+    // One item per coin and time bucket, ticks appended as lists
+    private void createPriceHistoryTable() {
         try {
             DescribeTableRequest request = DescribeTableRequest.builder()
-                    .tableName(usersTableName)
+                    .tableName(priceHistoryTableName)
                     .build();
             dynamoDbClient.describeTable(request);
-            log.info("Table {} already exists", usersTableName);
+            log.info("Table {} already exists", priceHistoryTableName);
         } catch (ResourceNotFoundException e) {
-            log.info("Creating table: {}", usersTableName);
+            log.info("Creating table: {}", priceHistoryTableName);
             CreateTableRequest createRequest = CreateTableRequest.builder()
-                    .tableName(usersTableName)
+                    .tableName(priceHistoryTableName)
                     .keySchema(
                             KeySchemaElement.builder()
-                                    .attributeName("username")
+                                    .attributeName("symbol")
                                     .keyType(KeyType.HASH)
+                                    .build(),
+                            KeySchemaElement.builder()
+                                    .attributeName("bucket")
+                                    .keyType(KeyType.RANGE)
                                     .build()
                     )
                     .attributeDefinitions(
                             AttributeDefinition.builder()
-                                    .attributeName("username")
+                                    .attributeName("symbol")
                                     .attributeType(ScalarAttributeType.S)
+                                    .build(),
+                            AttributeDefinition.builder()
+                                    .attributeName("bucket")
+                                    .attributeType(ScalarAttributeType.N)
                                     .build()
                     )
                     .billingMode(BillingMode.PAY_PER_REQUEST)
                     .build();
 
             dynamoDbClient.createTable(createRequest);
-            log.info("Table {} created successfully", usersTableName);
+            log.info("Table {} created successfully", priceHistoryTableName);
         }
     }
 
-    private void createWatchlistTable() {
+    // One item per candle, keyed by "SYMBOL#resolution" and period start
+    private void createCandlesTable() {
         try {
             DescribeTableRequest request = DescribeTableRequest.builder()
-                    .tableName(watchlistTableName)
+                    .tableName(candlesTableName)
                     .build();
             dynamoDbClient.describeTable(request);
-            log.info("Table {} already exists", watchlistTableName);
+            log.info("Table {} already exists", candlesTableName);
         } catch (ResourceNotFoundException e) {
-            log.info("Creating table: {}", watchlistTableName);
+            log.info("Creating table: {}", candlesTableName);
             CreateTableRequest createRequest = CreateTableRequest.builder()
-                    .tableName(watchlistTableName)
+                    .tableName(candlesTableName)
                     .keySchema(
                             KeySchemaElement.builder()
-                                    .attributeName("userId")
+                                    .attributeName("series")
                                     .keyType(KeyType.HASH)
                                     .build(),
                             KeySchemaElement.builder()
-                                    .attributeName("coinId")
+                                    .attributeName("start")
                                     .keyType(KeyType.RANGE)
                                     .build()
                     )
                     .attributeDefinitions(
                             AttributeDefinition.builder()
-                                    .attributeName("userId")
+                                    .attributeName("series")
                                     .attributeType(ScalarAttributeType.S)
                                     .build(),
                             AttributeDefinition.builder()
-                                    .attributeName("coinId")
-                                    .attributeType(ScalarAttributeType.S)
+                                    .attributeName("start")
+                                    .attributeType(ScalarAttributeType.N)
                                     .build()
                     )
                     .billingMode(BillingMode.PAY_PER_REQUEST)
                     .build();
 
             dynamoDbClient.createTable(createRequest);
-            log.info("Table {} created successfully", watchlistTableName);
+            log.info("Table {} created successfully", candlesTableName);
         }
     }
-}
\ No newline at end of file
+}
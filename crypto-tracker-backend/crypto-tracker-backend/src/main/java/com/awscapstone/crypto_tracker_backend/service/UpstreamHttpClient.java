@@ -0,0 +1,126 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared HTTP client for every upstream price call. Runs each request on a
+ * virtual thread so it can be abandoned at its deadline, and aggregates
+ * latency and pool statistics that are flushed to CloudWatch once a minute.
+ */
+@Service
+@Slf4j
+public class UpstreamHttpClient {
+
+    private final RestTemplate restTemplate;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloudWatchService cloudWatchService;
+    private final Duration defaultDeadline;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final LongAdder deadlineExceededCount = new LongAdder();
+    private final LongAdder totalLatencyMs = new LongAdder();
+    private final AtomicLong maxLatencyMs = new AtomicLong();
+
+    public UpstreamHttpClient(@Qualifier("upstreamRestTemplate") RestTemplate restTemplate,
+                              PoolingHttpClientConnectionManager connectionManager,
+                              CloudWatchService cloudWatchService,
+                              @Value("${upstream.http.deadline-ms:15000}") long deadlineMs) {
+        this.restTemplate = restTemplate;
+        this.connectionManager = connectionManager;
+        this.cloudWatchService = cloudWatchService;
+        this.defaultDeadline = Duration.ofMillis(deadlineMs);
+    }
+
+    public <T> T get(String url, ResponseExtractor<T> extractor) {
+        return get(url, extractor, defaultDeadline);
+    }
+
+    public <T> T get(String url, ResponseExtractor<T> extractor, Duration deadline) {
+        long start = System.nanoTime();
+        boolean success = false;
+        Future<T> call = executor.submit(() -> restTemplate.execute(url, HttpMethod.GET, null, extractor));
+
+        try {
+            T result = call.get(deadline.toMillis(), TimeUnit.MILLISECONDS);
+            success = true;
+            return result;
+        } catch (TimeoutException e) {
+            // Interrupting a virtual thread blocked on a socket closes the connection
+            call.cancel(true);
+            deadlineExceededCount.increment();
+            throw new ResourceAccessException("Upstream call exceeded its " + deadline.toMillis() + " ms deadline");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ResourceAccessException("Upstream call failed: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            call.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while waiting for upstream call");
+        } finally {
+            record(System.nanoTime() - start, success);
+        }
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void publishMetrics() {
+        long requests = requestCount.sumThenReset();
+        long errors = errorCount.sumThenReset();
+        long deadlineExceeded = deadlineExceededCount.sumThenReset();
+        long latency = totalLatencyMs.sumThenReset();
+        long maxLatency = maxLatencyMs.getAndSet(0);
+
+        if (requests > 0) {
+            cloudWatchService.publishMetric("UpstreamRequestCount", requests, "Count");
+            cloudWatchService.publishMetric("UpstreamRequestErrors", errors, "Count");
+            cloudWatchService.publishMetric("UpstreamDeadlineExceeded", deadlineExceeded, "Count");
+            cloudWatchService.publishMetric("UpstreamLatencyAverage", (double) latency / requests, "Milliseconds");
+            cloudWatchService.publishMetric("UpstreamLatencyMax", maxLatency, "Milliseconds");
+        }
+
+        PoolStats pool = connectionManager.getTotalStats();
+        cloudWatchService.publishMetric("UpstreamConnectionsLeased", pool.getLeased(), "Count");
+        cloudWatchService.publishMetric("UpstreamConnectionsIdle", pool.getAvailable(), "Count");
+        cloudWatchService.publishMetric("UpstreamConnectionsPending", pool.getPending(), "Count");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void record(long elapsedNanos, boolean success) {
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        requestCount.increment();
+        totalLatencyMs.add(elapsedMs);
+        maxLatencyMs.accumulateAndGet(elapsedMs, Math::max);
+        if (!success) {
+            errorCount.increment();
+        }
+        log.debug("Upstream call took {} ms (success={})", elapsedMs, success);
+    }
+}
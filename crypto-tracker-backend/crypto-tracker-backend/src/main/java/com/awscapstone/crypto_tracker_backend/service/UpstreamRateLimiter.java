@@ -0,0 +1,109 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket shared by every call to the upstream price provider.
+ * Refills continuously at the configured per-minute quota and can be
+ * paused outright when the provider answers 429 with a Retry-After.
+ */
+@Component
+@Slf4j
+public class UpstreamRateLimiter {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+
+    public UpstreamRateLimiter(@Value("${coingecko.api.rate-limit-per-minute:30}") int requestsPerMinute) {
+        this.capacity = Math.max(1, requestsPerMinute);
+        this.tokensPerNano = capacity / TimeUnit.MINUTES.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                refill(now);
+                if (now < pausedUntilNanos) {
+                    waitNanos = pausedUntilNanos - now;
+                } else if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                } else {
+                    waitNanos = (long) Math.ceil((1 - tokens) / tokensPerNano);
+                }
+            } finally {
+                lock.unlock();
+            }
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    // Takes a token without waiting, and only if at least `reserve` tokens would remain for blocking callers
+    public boolean tryAcquire(double reserve) {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            refill(now);
+            if (now < pausedUntilNanos || tokens - 1 < reserve) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called when the provider tells us to back off; blocks every caller until it elapses
+    public void pauseFor(Duration duration) {
+        lock.lock();
+        try {
+            long until = System.nanoTime() + duration.toNanos();
+            if (until > pausedUntilNanos) {
+                pausedUntilNanos = until;
+                tokens = 0;
+                log.warn("Upstream rate limit hit, pausing requests for {} ms", duration.toMillis());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double availableTokens() {
+        lock.lock();
+        try {
+            refill(System.nanoTime());
+            return tokens;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getCapacity() {
+        return capacity;
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefillNanos = now;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.source.ResponseRecording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Archives raw upstream market responses to compressed, append-only files
+ * when price-source.recording.directory is set. The body is copied as the
+ * parser streams it, so recording adds no extra pass over the payload.
+ */
+@Component
+@Slf4j
+public class UpstreamRecorder {
+
+    private static final DateTimeFormatter FILE_HOUR = DateTimeFormatter.ofPattern("yyyyMMdd-HH").withZone(ZoneOffset.UTC);
+
+    private final Path directory;
+
+    public UpstreamRecorder(@Value("${price-source.recording.directory:}") String directory) {
+        this.directory = directory == null || directory.isBlank() ? null : Path.of(directory);
+        if (this.directory != null) {
+            log.info("Recording upstream responses to {}", this.directory.toAbsolutePath());
+        }
+    }
+
+    private volatile long currentTick;
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    // Responses recorded until endTick share this tick, so a scheduler tick's pages and lookups replay together
+    public void beginTick(long tick) {
+        currentTick = tick;
+    }
+
+    public void endTick() {
+        currentTick = 0;
+    }
+
+    /**
+     * Wraps a response body so that everything read from it is recorded
+     * when it is closed. The given tick is used for responses fetched
+     * outside a scheduler tick.
+     */
+    public InputStream record(long tick, ResponseRecording.Kind kind, String description, InputStream body) {
+        if (directory == null) {
+            return body;
+        }
+
+        long recordedTick = currentTick > 0 ? currentTick : tick;
+
+        ByteArrayOutputStream copy = new ByteArrayOutputStream(64 * 1024);
+        return new FilterInputStream(body) {
+            private boolean closed;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    copy.write(b);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) {
+                    copy.write(buffer, offset, n);
+                }
+                return n;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                // The parser stops at the closing bracket; keep whatever follows too
+                try {
+                    copy.writeBytes(in.readAllBytes());
+                } finally {
+                    super.close();
+                }
+                append(new ResponseRecording.Entry(recordedTick, System.currentTimeMillis(), kind, description, copy.toByteArray()));
+            }
+        };
+    }
+
+    private synchronized void append(ResponseRecording.Entry entry) {
+        try {
+            Files.createDirectories(directory);
+            Path file = directory.resolve("upstream-" + FILE_HOUR.format(Instant.ofEpochMilli(entry.tick())) + ResponseRecording.FILE_SUFFIX);
+            ResponseRecording.append(file, entry);
+        } catch (IOException e) {
+            log.warn("Failed to record upstream response: {}", e.getMessage());
+        }
+    }
+}
@@ -16,7 +16,7 @@ public class UserService {
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
     public User registerUser(String username, String email, String password) {
-        if (userRepository.existsByUsername(username)) {
+        if (Futures.await(userRepository.existsByUsername(username))) {
             throw new RuntimeException("User already exists");
         }
 
@@ -27,11 +27,11 @@ public class UserService {
         user.setRole("USER");
         user.setCreatedAt(System.currentTimeMillis());
 
-        return userRepository.save(user);
+        return Futures.await(userRepository.save(user));
     }
 
     public User authenticateUser(String username, String password) {
-        User user = userRepository.findByUsername(username)
+        User user = Futures.await(userRepository.findByUsername(username))
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         if (!passwordEncoder.matches(password, user.getPassword())) {
@@ -42,10 +42,10 @@ public class UserService {
     }
 
     public User getUserByUsername(String username) {
-        return userRepository.findByUsername(username).orElse(null);
+        return Futures.await(userRepository.findByUsername(username)).orElse(null);
     }
 
     public boolean userExists(String username) {
-        return userRepository.existsByUsername(username);
+        return Futures.await(userRepository.existsByUsername(username));
     }
 }
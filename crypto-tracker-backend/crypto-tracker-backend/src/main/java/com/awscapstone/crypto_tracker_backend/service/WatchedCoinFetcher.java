@@ -0,0 +1,81 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.model.PriceSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Keeps coins that users watch or have alerts on fresh even when they fall
+ * outside the pages the scheduler polls. Each tick, referenced symbols the
+ * snapshot does not cover are looked up by id and folded into it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WatchedCoinFetcher {
+
+    private final WatchlistService watchlistService;
+    private final AlertService alertService;
+    private final PriceSnapshotService priceSnapshotService;
+    private final CloudWatchService cloudWatchService;
+
+    @Value("${watchlist.symbols-cache-ms:60000}")
+    private long symbolsCacheMs;
+
+    private volatile Set<String> watchedSymbols = Set.of();
+    private volatile long watchedSymbolsLoadedAt;
+
+    public List<CryptoPrice> fetchMissing() {
+        Set<String> missing = new TreeSet<>(referencedSymbols());
+        PriceSnapshot snapshot = priceSnapshotService.getLastKnownGood();
+        if (snapshot != null) {
+            snapshot.prices().stream()
+                    .filter(price -> price.getSymbol() != null)
+                    .forEach(price -> missing.remove(price.getSymbol().toUpperCase()));
+        }
+        if (missing.isEmpty()) {
+            return List.of();
+        }
+
+        List<CryptoPrice> fetched;
+        try {
+            fetched = priceSnapshotService.lookupPartial(source -> source.fetchBySymbols(missing));
+        } catch (RuntimeException e) {
+            // Counted on their own, since these lookups stay outside the main feed's circuit breaker
+            cloudWatchService.publishMetric("WatchedCoinLookupErrors", 1, "Count");
+            throw e;
+        }
+        int unresolved = missing.size() - fetched.size();
+        log.info("Fetched {} watched coins outside the polled pages ({} unresolved)", fetched.size(), unresolved);
+        cloudWatchService.publishMetric("WatchedCoinsFetched", fetched.size(), "Count");
+        cloudWatchService.publishMetric("WatchedCoinsUnresolved", Math.max(0, unresolved), "Count");
+        return fetched;
+    }
+
+    public Set<String> referencedSymbols() {
+        Set<String> symbols = new HashSet<>(watchedSymbols());
+        alertService.getAllAlerts().keySet().forEach(symbol -> symbols.add(symbol.toUpperCase()));
+        return symbols;
+    }
+
+    // The watchlist table is scanned at most once per cache period
+    private Set<String> watchedSymbols() {
+        if (System.currentTimeMillis() - watchedSymbolsLoadedAt > symbolsCacheMs) {
+            try {
+                watchedSymbols = Set.copyOf(watchlistService.getAllWatchedSymbols());
+            } catch (Exception e) {
+                log.warn("Using cached watched symbols: {}", e.getMessage());
+            }
+            watchedSymbolsLoadedAt = System.currentTimeMillis();
+        }
+        return watchedSymbols;
+    }
+}
@@ -1,113 +1,98 @@
 package com.awscapstone.crypto_tracker_backend.service;
 
+import com.awscapstone.crypto_tracker_backend.model.Watchlist;
+import com.awscapstone.crypto_tracker_backend.repository.WatchlistRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.model.*;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class WatchlistService {
 
-    private final DynamoDbClient dynamoDbClient;
+    private static final double WATCH_DEMAND_WEIGHT = 5.0;
 
-    @Qualifier("watchlistTableName")
-    private final String watchlistTableName;
+    private final WatchlistRepository watchlistRepository;
+    private final CoinDemandTracker coinDemandTracker;
 
-    public void addToWatchlist(String userId, String cryptoSymbol) {
+    public CompletableFuture<Void> addToWatchlistAsync(String userId, String cryptoSymbol) {
         // Check if already in watchlist
-        if (isInWatchlist(userId, cryptoSymbol)) {
-            throw new RuntimeException("This cryptocurrency is already in your watchlist.");
-        }
-
-        try {
-            Map<String, AttributeValue> item = new HashMap<>();
-            item.put("user_id", AttributeValue.builder().s(userId).build());
-            item.put("crypto_symbol", AttributeValue.builder().s(cryptoSymbol.toUpperCase()).build());
-            item.put("added_at", AttributeValue.builder().n(String.valueOf(System.currentTimeMillis())).build());
-
-            PutItemRequest request = PutItemRequest.builder()
-                    .tableName(watchlistTableName)
-                    .item(item)
-                    .build();
-
-            dynamoDbClient.putItem(request);
-            log.info("Added {} to watchlist for user {}", cryptoSymbol, userId);
-
-        } catch (Exception e) {
-            log.error("Error adding to watchlist: {}", e.getMessage());
-            throw new RuntimeException("Failed to add to watchlist", e);
-        }
+        return isInWatchlistAsync(userId, cryptoSymbol).thenCompose(exists -> {
+            if (exists) {
+                throw new RuntimeException("This cryptocurrency is already in your watchlist.");
+            }
+
+            Watchlist entry = new Watchlist();
+            entry.setUserId(userId);
+            entry.setSymbol(cryptoSymbol.toUpperCase());
+            entry.setAddedAt(System.currentTimeMillis());
+
+            return watchlistRepository.save(entry)
+                    .handle((saved, error) -> {
+                        if (error != null) {
+                            log.error("Error adding to watchlist: {}", Futures.unwrap(error).getMessage());
+                            throw new RuntimeException("Failed to add to watchlist", Futures.unwrap(error));
+                        }
+                        log.info("Added {} to watchlist for user {}", cryptoSymbol, userId);
+                        coinDemandTracker.recordDemand(cryptoSymbol, WATCH_DEMAND_WEIGHT);
+                        return null;
+                    });
+        });
     }
 
-    public void removeFromWatchlist(String userId, String cryptoSymbol) {
-        try {
-            Map<String, AttributeValue> key = new HashMap<>();
-            key.put("user_id", AttributeValue.builder().s(userId).build());
-            key.put("crypto_symbol", AttributeValue.builder().s(cryptoSymbol.toUpperCase()).build());
-
-            DeleteItemRequest request = DeleteItemRequest.builder()
-                    .tableName(watchlistTableName)
-                    .key(key)
-                    .build();
-
-            dynamoDbClient.deleteItem(request);
-            log.info("Removed {} from watchlist for user {}", cryptoSymbol, userId);
-
-        } catch (Exception e) {
-            log.error("Error removing from watchlist: {}", e.getMessage());
-            throw new RuntimeException("Failed to remove from watchlist", e);
-        }
+    public void addToWatchlist(String userId, String cryptoSymbol) {
+        Futures.await(addToWatchlistAsync(userId, cryptoSymbol));
     }
 
-    public List<String> getUserWatchlist(String userId) {
-        List<String> watchlist = new ArrayList<>();
+    public CompletableFuture<Void> removeFromWatchlistAsync(String userId, String cryptoSymbol) {
+        return watchlistRepository.deleteByUserIdAndSymbol(userId, cryptoSymbol)
+                .handle((ignored, error) -> {
+                    if (error != null) {
+                        log.error("Error removing from watchlist: {}", Futures.unwrap(error).getMessage());
+                        throw new RuntimeException("Failed to remove from watchlist", Futures.unwrap(error));
+                    }
+                    log.info("Removed {} from watchlist for user {}", cryptoSymbol, userId);
+                    return null;
+                });
+    }
 
-        try {
-            Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
-            expressionAttributeValues.put(":user_id", AttributeValue.builder().s(userId).build());
+    public void removeFromWatchlist(String userId, String cryptoSymbol) {
+        Futures.await(removeFromWatchlistAsync(userId, cryptoSymbol));
+    }
 
-            QueryRequest queryRequest = QueryRequest.builder()
-                    .tableName(watchlistTableName)
-                    .keyConditionExpression("user_id = :user_id")
-                    .expressionAttributeValues(expressionAttributeValues)
-                    .build();
+    public CompletableFuture<List<String>> getUserWatchlistAsync(String userId) {
+        return watchlistRepository.findSymbolsByUserId(userId)
+                .exceptionally(error -> {
+                    log.error("Error fetching watchlist for user {}: {}", userId, Futures.unwrap(error).getMessage());
+                    return new ArrayList<>();
+                });
+    }
 
-            QueryResponse response = dynamoDbClient.query(queryRequest);
+    public List<String> getUserWatchlist(String userId) {
+        return Futures.await(getUserWatchlistAsync(userId));
+    }
 
-            for (Map<String, AttributeValue> item : response.items()) {
-                watchlist.add(item.get("crypto_symbol").s());
-            }
+    public CompletableFuture<Set<String>> getAllWatchedSymbolsAsync() {
+        return watchlistRepository.findAllSymbols();
+    }
 
-        } catch (Exception e) {
-            log.error("Error fetching watchlist for user {}: {}", userId, e.getMessage());
-        }
+    public Set<String> getAllWatchedSymbols() {
+        return Futures.await(getAllWatchedSymbolsAsync());
+    }
 
-        return watchlist;
+    public CompletableFuture<Boolean> isInWatchlistAsync(String userId, String cryptoSymbol) {
+        return watchlistRepository.existsByUserIdAndSymbol(userId, cryptoSymbol)
+                .exceptionally(error -> {
+                    log.error("Error checking watchlist: {}", Futures.unwrap(error).getMessage());
+                    return false;
+                });
     }
 
     public boolean isInWatchlist(String userId, String cryptoSymbol) {
-        try {
-            Map<String, AttributeValue> key = new HashMap<>();
-            key.put("user_id", AttributeValue.builder().s(userId).build());
-            key.put("crypto_symbol", AttributeValue.builder().s(cryptoSymbol.toUpperCase()).build());
-
-            GetItemRequest request = GetItemRequest.builder()
-                    .tableName(watchlistTableName)
-                    .key(key)
-                    .build();
-
-            GetItemResponse response = dynamoDbClient.getItem(request);
-            return response.hasItem();
-
-        } catch (Exception e) {
-            log.error("Error checking watchlist: {}", e.getMessage());
-            return false;
-        }
+        return Futures.await(isInWatchlistAsync(userId, cryptoSymbol));
     }
 }
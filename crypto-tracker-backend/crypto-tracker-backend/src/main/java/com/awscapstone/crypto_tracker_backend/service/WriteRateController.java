@@ -0,0 +1,233 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.RequestLimitExceededException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * AIMD limit on concurrent DynamoDB writes, shared by every writer. Each
+ * successful write raises the limit by roughly one per limit's worth of
+ * writes; a throttled one cuts it by the decrease factor.
+ * <p>
+ * Writes over the limit wait in a bounded queue per flow, so one writer
+ * filling its queue cannot crowd out the others; freed slots go to the
+ * flows in turn. Once a flow's queue is full its new writes are rejected
+ * instead of piling up in memory. Retrying throttled or rejected writes
+ * stays with the caller.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WriteRateController {
+
+    public enum Flow { HISTORY, CANDLES, METADATA, LATEST_PRICES, PURGE }
+
+    private static final Flow[] FLOWS = Flow.values();
+
+    private record Deferred<T>(Supplier<CompletableFuture<T>> write, Predicate<T> throttled, CompletableFuture<T> result) {
+    }
+
+    private final CloudWatchService cloudWatchService;
+
+    @Value("${dynamodb.write-rate.initial-concurrency:8}")
+    private int initialConcurrency;
+
+    @Value("${dynamodb.write-rate.min-concurrency:1}")
+    private int minConcurrency;
+
+    @Value("${dynamodb.write-rate.max-concurrency:64}")
+    private int maxConcurrency;
+
+    @Value("${dynamodb.write-rate.decrease-factor:0.5}")
+    private double decreaseFactor;
+
+    @Value("${dynamodb.write-rate.max-queued:5000}")
+    private int maxQueued;
+
+    private final Map<Flow, Queue<Deferred<?>>> queues = new EnumMap<>(Flow.class);
+    private int nextFlow;
+    private double limit = -1;
+    private int inFlight;
+    private long lastDecreaseNanos = System.nanoTime();
+    private long throttles;
+    private long rejected;
+
+    public <T> CompletableFuture<T> submit(Flow flow, Supplier<CompletableFuture<T>> write) {
+        return submit(flow, write, result -> false);
+    }
+
+    /**
+     * Runs the write once the limit allows it. {@code throttled} marks
+     * results that succeeded but still signal throttling, such as a batch
+     * write that came back with unprocessed items.
+     */
+    public <T> CompletableFuture<T> submit(Flow flow, Supplier<CompletableFuture<T>> write, Predicate<T> throttled) {
+        Deferred<T> deferred = new Deferred<>(write, throttled, new CompletableFuture<>());
+        synchronized (this) {
+            Queue<Deferred<?>> queue = queues.computeIfAbsent(flow, ignored -> new ArrayDeque<>());
+            if (inFlight < currentLimit() && queuedTotal() == 0) {
+                inFlight++;
+            } else if (queue.size() < maxQueued) {
+                queue.add(deferred);
+                return deferred.result();
+            } else {
+                rejected++;
+                deferred.result().completeExceptionally(new RejectedExecutionException("Write queue of " + flow + " is full"));
+                return deferred.result();
+            }
+        }
+        start(deferred);
+        return deferred.result();
+    }
+
+    // Writes one flow can have waiting before new ones are rejected
+    public int queueCapacity() {
+        return Math.max(1, maxQueued);
+    }
+
+    // The most writes the limit can ever let run at once; wider fan-out only waits in the queue
+    public int maxConcurrency() {
+        return Math.max(1, Math.max(minConcurrency, maxConcurrency));
+    }
+
+    private <T> void start(Deferred<T> deferred) {
+        long startedNanos = System.nanoTime();
+        CompletableFuture<T> write;
+        try {
+            write = deferred.write().get();
+        } catch (RuntimeException e) {
+            write = CompletableFuture.failedFuture(e);
+        }
+        write.whenComplete((result, error) -> {
+            boolean throttled = error != null ? isThrottling(error) : deferred.throttled().test(result);
+            finished(startedNanos, throttled);
+            if (error != null) {
+                deferred.result().completeExceptionally(Futures.unwrap(error));
+            } else {
+                deferred.result().complete(result);
+            }
+        });
+    }
+
+    private void finished(long startedNanos, boolean throttled) {
+        List<Deferred<?>> ready = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            if (!throttled) {
+                limit = Math.min(maxConcurrency, currentLimit() + 1 / currentLimit());
+            } else {
+                throttles++;
+                // Writes sent before the last cut saw the old limit, so they must not cut it again
+                if (startedNanos - lastDecreaseNanos > 0) {
+                    limit = Math.max(minConcurrency, currentLimit() * decreaseFactor);
+                    lastDecreaseNanos = System.nanoTime();
+                    log.info("DynamoDB writes throttled, concurrency limit cut to {}", (int) limit);
+                }
+            }
+            // A raised limit can free more than the one slot this write held
+            Deferred<?> next;
+            while (inFlight < currentLimit() && (next = pollNextFlow()) != null) {
+                ready.add(next);
+                inFlight++;
+            }
+        }
+        ready.forEach(this::start);
+    }
+
+    // Round-robin over the flows with something queued
+    private Deferred<?> pollNextFlow() {
+        for (int i = 0; i < FLOWS.length; i++) {
+            Flow flow = FLOWS[(nextFlow + i) % FLOWS.length];
+            Queue<Deferred<?>> queue = queues.get(flow);
+            if (queue != null && !queue.isEmpty()) {
+                nextFlow = (flow.ordinal() + 1) % FLOWS.length;
+                return queue.poll();
+            }
+        }
+        return null;
+    }
+
+    private int queuedTotal() {
+        int total = 0;
+        for (Queue<Deferred<?>> queue : queues.values()) {
+            total += queue.size();
+        }
+        return total;
+    }
+
+    private double currentLimit() {
+        if (limit < 0) {
+            limit = Math.max(minConcurrency, Math.min(maxConcurrency, initialConcurrency));
+        }
+        return limit;
+    }
+
+    synchronized double limit() {
+        return currentLimit();
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    synchronized int queued(Flow flow) {
+        Queue<Deferred<?>> queue = queues.get(flow);
+        return queue == null ? 0 : queue.size();
+    }
+
+    public static boolean isThrottling(Throwable error) {
+        Throwable cause = Futures.unwrap(error);
+        return cause instanceof ProvisionedThroughputExceededException
+                || cause instanceof RequestLimitExceededException
+                || cause instanceof AwsServiceException serviceException && serviceException.isThrottlingException();
+    }
+
+    public static boolean isRejected(Throwable error) {
+        return Futures.unwrap(error) instanceof RejectedExecutionException;
+    }
+
+    // Unprocessed items in a batch write are DynamoDB throttling part of the batch
+    public static boolean hasUnprocessedItems(BatchWriteItemResponse response) {
+        return response.hasUnprocessedItems() && !response.unprocessedItems().isEmpty();
+    }
+
+    @Scheduled(fixedRateString = "${dynamodb.write-rate.metrics-interval-ms:60000}")
+    public void publishMetrics() {
+        double currentLimit;
+        int running;
+        int queued;
+        long throttled;
+        long rejectedWrites;
+        synchronized (this) {
+            currentLimit = currentLimit();
+            running = inFlight;
+            queued = queuedTotal();
+            throttled = throttles;
+            rejectedWrites = rejected;
+            throttles = 0;
+            rejected = 0;
+        }
+        cloudWatchService.publishMetric("WriteConcurrencyLimit", Math.floor(currentLimit), "Count");
+        cloudWatchService.publishMetric("WritesInFlight", running, "Count");
+        cloudWatchService.publishMetric("WritesQueued", queued, "Count");
+        cloudWatchService.publishMetric("WriteThrottles", throttled, "Count");
+        cloudWatchService.publishMetric("WritesRejected", rejectedWrites, "Count");
+    }
+}
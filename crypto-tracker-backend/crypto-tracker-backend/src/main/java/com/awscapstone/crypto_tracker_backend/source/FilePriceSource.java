@@ -0,0 +1,61 @@
+package com.awscapstone.crypto_tracker_backend.source;
+
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.service.CoinGeckoMarketsParser;
+import com.awscapstone.crypto_tracker_backend.service.UpstreamHttpClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Serves a CoinGecko-shaped markets document from a file, classpath
+ * resource or local HTTP endpoint. Used as an offline stand-in and as a
+ * hedge target for the live provider.
+ */
+@Component
+@ConditionalOnProperty(name = "price-source.file.location")
+@RequiredArgsConstructor
+@Slf4j
+public class FilePriceSource implements PriceSource {
+
+    private final CoinGeckoMarketsParser marketsParser;
+    private final UpstreamHttpClient upstreamHttpClient;
+    private final ResourceLoader resourceLoader;
+
+    @Value("${price-source.file.location}")
+    private String location;
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public List<CryptoPrice> fetchPrices() {
+        try {
+            if (location.startsWith("http://") || location.startsWith("https://")) {
+                List<CryptoPrice> cryptoPrices = upstreamHttpClient.get(location,
+                        response -> marketsParser.parse(response.getBody()));
+                return cryptoPrices != null ? cryptoPrices : List.of();
+            }
+
+            Resource resource = resourceLoader.getResource(location);
+            try (InputStream body = resource.getInputStream()) {
+                List<CryptoPrice> cryptoPrices = marketsParser.parse(body);
+                log.info("Loaded {} cryptocurrencies from {}", cryptoPrices.size(), location);
+                return cryptoPrices;
+            }
+
+        } catch (Exception e) {
+            log.error("Error reading prices from {}: {}", location, e.getMessage());
+            throw new RuntimeException("Failed to read cryptocurrency data from " + location, e);
+        }
+    }
+}
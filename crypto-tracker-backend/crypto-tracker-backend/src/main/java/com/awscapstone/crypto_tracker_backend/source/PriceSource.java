@@ -0,0 +1,44 @@
+package com.awscapstone.crypto_tracker_backend.source;
+
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A provider of market snapshots. Implementations are picked by name
+ * through the price-source.* settings.
+ */
+public interface PriceSource {
+
+    String getName();
+
+    List<CryptoPrice> fetchPrices();
+
+    // Sources that can page by market cap rank should override this
+    default List<CryptoPrice> fetchRankRange(int fromRank, int toRank) {
+        return fetchPrices().stream()
+                .filter(price -> price.getMarketCapRank() != null
+                        && price.getMarketCapRank() >= fromRank
+                        && price.getMarketCapRank() <= toRank)
+                .toList();
+    }
+
+    // Sources that can look coins up directly should override this
+    default List<CryptoPrice> fetchByIds(Collection<String> coinIds) {
+        Set<String> wanted = Set.copyOf(coinIds);
+        return fetchPrices().stream()
+                .filter(price -> wanted.contains(price.getCoinId()))
+                .toList();
+    }
+
+    // Symbols are not unique across coins; implementations return the best ranked match for each
+    default List<CryptoPrice> fetchBySymbols(Collection<String> symbols) {
+        Set<String> wanted = symbols.stream().map(String::toUpperCase).collect(Collectors.toSet());
+        return fetchPrices().stream()
+                .filter(price -> price.getSymbol() != null && wanted.contains(price.getSymbol().toUpperCase()))
+                .toList();
+    }
+}
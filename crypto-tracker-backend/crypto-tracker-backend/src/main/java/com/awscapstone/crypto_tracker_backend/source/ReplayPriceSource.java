@@ -0,0 +1,219 @@
+package com.awscapstone.crypto_tracker_backend.source;
+
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.service.CloudWatchService;
+import com.awscapstone.crypto_tracker_backend.service.CoinGeckoMarketsParser;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Plays back responses captured by the upstream recorder, one recorded
+ * tick per scheduler tick. A tick's market pages are merged into one
+ * snapshot; its by-id responses only answer lookups. Ticks are paced at
+ * the recorded intervals divided by the speed factor (0 for as fast as
+ * possible), so with a short scheduler rate the whole ingestion pipeline
+ * runs at the replayed pace.
+ */
+@Component
+@ConditionalOnProperty(name = "price-source.replay.directory")
+@Slf4j
+public class ReplayPriceSource implements PriceSource {
+
+    private record Tick(long tick, List<CryptoPrice> markets, List<CryptoPrice> lookups) {
+    }
+
+    private final CoinGeckoMarketsParser marketsParser;
+    private final CloudWatchService cloudWatchService;
+    private final Path directory;
+    private final double speed;
+    private final boolean loop;
+
+    private ResponseRecording.Reader reader;
+    private ResponseRecording.Entry pending;
+    private long firstTick = -1;
+    private long replayStartNanos;
+    private int restarts;
+    private Tick current;
+    private final Set<List<Integer>> servedRanges = new HashSet<>();
+
+    public ReplayPriceSource(CoinGeckoMarketsParser marketsParser,
+                             CloudWatchService cloudWatchService,
+                             @Value("${price-source.replay.directory}") String directory,
+                             @Value("${price-source.replay.speed:1}") double speed,
+                             @Value("${price-source.replay.loop:true}") boolean loop) {
+        this.marketsParser = marketsParser;
+        this.cloudWatchService = cloudWatchService;
+        this.directory = Path.of(directory);
+        this.speed = speed;
+        this.loop = loop;
+    }
+
+    @Override
+    public String getName() {
+        return "replay";
+    }
+
+    @Override
+    public synchronized List<CryptoPrice> fetchPrices() {
+        // Ticks that only looked coins up carry no snapshot, so they are passed over
+        int restartsBefore = restarts;
+        Tick tick = advance();
+        while (tick.markets().isEmpty()) {
+            if (restarts - restartsBefore > 1) {
+                throw new IllegalStateException("No recorded market responses in " + directory);
+            }
+            tick = advance();
+        }
+        return tick.markets();
+    }
+
+    // One scheduler tick asks for several rank ranges; asking for a range again moves on to the next recorded tick
+    @Override
+    public synchronized List<CryptoPrice> fetchRankRange(int fromRank, int toRank) {
+        if (current == null || !servedRanges.add(List.of(fromRank, toRank))) {
+            advance();
+            servedRanges.add(List.of(fromRank, toRank));
+        }
+        return current.markets().stream()
+                .filter(price -> price.getMarketCapRank() != null
+                        && price.getMarketCapRank() >= fromRank
+                        && price.getMarketCapRank() <= toRank)
+                .toList();
+    }
+
+    // Lookups are answered from the current tick and never move the replay forward
+    @Override
+    public synchronized List<CryptoPrice> fetchByIds(Collection<String> coinIds) {
+        Set<String> wanted = Set.copyOf(coinIds);
+        return known().stream()
+                .filter(price -> wanted.contains(price.getCoinId()))
+                .toList();
+    }
+
+    @Override
+    public synchronized List<CryptoPrice> fetchBySymbols(Collection<String> symbols) {
+        Set<String> wanted = symbols.stream().map(String::toUpperCase).collect(Collectors.toSet());
+        Map<String, CryptoPrice> bestBySymbol = new LinkedHashMap<>();
+        for (CryptoPrice cryptoPrice : known()) {
+            String symbol = cryptoPrice.getSymbol() != null ? cryptoPrice.getSymbol().toUpperCase() : null;
+            if (symbol != null && wanted.contains(symbol)) {
+                bestBySymbol.merge(symbol, cryptoPrice, (best, candidate) -> rank(candidate) < rank(best) ? candidate : best);
+            }
+        }
+        return new ArrayList<>(bestBySymbol.values());
+    }
+
+    // The current tick's coins, by-id responses first since they were fetched for exactly these lookups
+    private List<CryptoPrice> known() {
+        if (current == null) {
+            return List.of();
+        }
+        Map<String, CryptoPrice> byCoinId = new LinkedHashMap<>();
+        current.lookups().forEach(price -> byCoinId.putIfAbsent(price.getCoinId(), price));
+        current.markets().forEach(price -> byCoinId.putIfAbsent(price.getCoinId(), price));
+        return new ArrayList<>(byCoinId.values());
+    }
+
+    private Tick advance() {
+        try {
+            ResponseRecording.Entry entry = nextEntry();
+            if (entry == null) {
+                throw new IllegalStateException("No recorded responses left in " + directory);
+            }
+
+            long tick = entry.tick();
+            Map<String, CryptoPrice> markets = new LinkedHashMap<>();
+            Map<String, CryptoPrice> lookups = new LinkedHashMap<>();
+            while (entry != null && entry.tick() == tick) {
+                Map<String, CryptoPrice> target = entry.kind() == ResponseRecording.Kind.MARKETS ? markets : lookups;
+                for (CryptoPrice cryptoPrice : marketsParser.parse(new ByteArrayInputStream(entry.body()))) {
+                    target.putIfAbsent(cryptoPrice.getCoinId(), cryptoPrice);
+                }
+                entry = nextEntry();
+            }
+            pending = entry;
+
+            pace(tick);
+            log.debug("Replaying tick {} with {} cryptocurrencies and {} looked up", tick, markets.size(), lookups.size());
+            current = new Tick(tick, new ArrayList<>(markets.values()), new ArrayList<>(lookups.values()));
+            servedRanges.clear();
+            return current;
+
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read recorded responses from " + directory, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while pacing replay", e);
+        }
+    }
+
+    private static int rank(CryptoPrice cryptoPrice) {
+        Integer rank = cryptoPrice.getMarketCapRank();
+        return rank == null || rank == 0 ? Integer.MAX_VALUE : rank;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() throws IOException {
+        if (reader != null) {
+            reader.close();
+        }
+    }
+
+    private ResponseRecording.Entry nextEntry() throws IOException {
+        if (pending != null) {
+            ResponseRecording.Entry entry = pending;
+            pending = null;
+            return entry;
+        }
+        if (reader == null) {
+            reader = new ResponseRecording.Reader(directory);
+        }
+
+        ResponseRecording.Entry entry = reader.next();
+        if (entry == null && loop && firstTick >= 0) {
+            log.info("Reached the end of the recording, starting over");
+            reader.close();
+            reader = new ResponseRecording.Reader(directory);
+            firstTick = -1;
+            restarts++;
+            entry = reader.next();
+        }
+        return entry;
+    }
+
+    // Waits until the tick is due on the scaled clock, or reports how far behind the pipeline is
+    private void pace(long tick) throws InterruptedException {
+        if (firstTick < 0) {
+            firstTick = tick;
+            replayStartNanos = System.nanoTime();
+            return;
+        }
+        if (speed <= 0) {
+            return;
+        }
+
+        long dueNanos = replayStartNanos + (long) (TimeUnit.MILLISECONDS.toNanos(tick - firstTick) / speed);
+        long waitNanos = dueNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } else {
+            cloudWatchService.publishMetric("ReplayLag", TimeUnit.NANOSECONDS.toMillis(-waitNanos), "Milliseconds");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.awscapstone.crypto_tracker_backend.source;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk format for recorded upstream responses. Each record is appended
+ * to an hourly file as its own gzip member, so files can be appended to
+ * without rewriting and a torn final write only loses that record.
+ * <p>
+ * A record holds the tick it belongs to (every response of one scheduler
+ * tick shares it), the time it was received, the kind of request, a
+ * description and the raw body. Records written before kinds existed are
+ * still read; their kind is inferred from the description.
+ */
+@Slf4j
+public final class ResponseRecording {
+
+    public static final String FILE_SUFFIX = ".rec.gz";
+
+    private ResponseRecording() {
+    }
+
+    // MARKETS responses are pages of the market snapshot; IDS responses answer lookups of specific coins
+    public enum Kind { MARKETS, IDS }
+
+    public record Entry(long tick, long receivedAt, Kind kind, String description, byte[] body) {
+    }
+
+    // Leads every record that carries a kind; a legacy record starts with its (positive) tick instead
+    private static final long KIND_FORMAT = Long.MIN_VALUE | 2;
+
+    public static void append(Path file, Entry entry) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND))))) {
+            out.writeLong(KIND_FORMAT);
+            out.writeLong(entry.tick());
+            out.writeLong(entry.receivedAt());
+            out.writeByte(entry.kind().ordinal());
+            out.writeUTF(entry.description());
+            out.writeInt(entry.body().length);
+            out.write(entry.body());
+        }
+    }
+
+    // Reads every recording file in a directory in name (and so time) order
+    public static class Reader implements Closeable {
+
+        private final Iterator<Path> files;
+        private DataInputStream current;
+        private Path currentFile;
+
+        public Reader(Path directory) throws IOException {
+            List<Path> paths = new ArrayList<>();
+            if (Files.isDirectory(directory)) {
+                try (Stream<Path> listing = Files.list(directory)) {
+                    listing.filter(path -> path.getFileName().toString().endsWith(FILE_SUFFIX))
+                            .sorted()
+                            .forEach(paths::add);
+                }
+            }
+            this.files = paths.iterator();
+        }
+
+        // Returns null once every file has been read
+        public Entry next() throws IOException {
+            while (true) {
+                if (current == null) {
+                    if (!files.hasNext()) {
+                        return null;
+                    }
+                    currentFile = files.next();
+                    current = new DataInputStream(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(currentFile))));
+                }
+
+                try {
+                    long first = current.readLong();
+                    boolean hasKind = first == KIND_FORMAT;
+                    long tick = hasKind ? current.readLong() : first;
+                    long receivedAt = current.readLong();
+                    Kind kind = hasKind ? Kind.values()[current.readUnsignedByte()] : null;
+                    String description = current.readUTF();
+                    if (kind == null) {
+                        kind = description.startsWith("ids") ? Kind.IDS : Kind.MARKETS;
+                    }
+                    byte[] body = new byte[current.readInt()];
+                    current.readFully(body);
+                    return new Entry(tick, receivedAt, kind, description, body);
+                } catch (EOFException e) {
+                    closeCurrent();
+                } catch (IOException e) {
+                    log.warn("Skipping the rest of damaged recording {}: {}", currentFile, e.getMessage());
+                    closeCurrent();
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            closeCurrent();
+        }
+
+        private void closeCurrent() throws IOException {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.awscapstone.crypto_tracker_backend.source;
+
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.model.Sparkline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Deterministic market simulator for scale testing. Each tick advances
+ * every coin by one step of a correlated geometric random walk, with
+ * occasional per-coin volatility bursts. The same seed, coin count and
+ * tick length always produce the same sequence of snapshots, timestamps
+ * included: the simulated clock starts at an epoch derived from the seed.
+ * <p>
+ * A full fetch is one tick. Rank ranges of one scheduler tick share a
+ * tick, which only moves on when a range is asked for again, and lookups
+ * by id or symbol read the current tick without advancing it.
+ * <p>
+ * Hourly samples are kept for the 7-day sparkline and the 1h/24h/7d
+ * changes, about 700 bytes per coin.
+ */
+@Component
+@ConditionalOnProperty(name = "price-source.synthetic.enabled", havingValue = "true")
+@Slf4j
+public class SyntheticPriceSource implements PriceSource {
+
+    private static final int SPARKLINE_POINTS = 168;
+    private static final double MILLIS_PER_YEAR = 365.25 * 24 * 3600 * 1000;
+    private static final int INDEX_BITS = 20;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final String ID_PREFIX = "synthetic-";
+    private static final String SYMBOL_PREFIX = "SYN";
+
+    private final int coinCount;
+    private final long tickMs;
+    private final double burstProbability;
+    private final double burstMultiplier;
+    private final int burstTicks;
+    private final int sparklineQuantizationBits;
+    private final SplittableRandom random;
+
+    private final double[] prices;
+    private final double[] supplies;
+    private final double[] volatilities;
+    private final double[] betas;
+    private final double[] volumeRatios;
+    private final int[] burstRemaining;
+    private final float[][] hourlySamples;
+    private final Sparkline[] sparklines;
+    private final int ticksPerSample;
+
+    private final int[] rankOrder;
+    private final int[] rankOf;
+    private final Set<List<Integer>> servedRanges = new HashSet<>();
+    private long tick;
+    private int samples;
+    private LocalDateTime clock;
+
+    public SyntheticPriceSource(@Value("${price-source.synthetic.seed:42}") long seed,
+                                @Value("${price-source.synthetic.coins:1000}") int coinCount,
+                                @Value("${price-source.synthetic.tick-ms:30000}") long tickMs,
+                                @Value("${price-source.synthetic.burst-probability:0.001}") double burstProbability,
+                                @Value("${price-source.synthetic.burst-multiplier:6}") double burstMultiplier,
+                                @Value("${price-source.synthetic.burst-ticks:20}") int burstTicks,
+                                @Value("${sparkline.quantization-bits:16}") int sparklineQuantizationBits) {
+        if (coinCount < 1 || coinCount > INDEX_MASK + 1) {
+            throw new IllegalArgumentException("price-source.synthetic.coins must be between 1 and " + (INDEX_MASK + 1));
+        }
+        this.coinCount = coinCount;
+        this.tickMs = tickMs;
+        this.burstProbability = burstProbability;
+        this.burstMultiplier = burstMultiplier;
+        this.burstTicks = burstTicks;
+        this.sparklineQuantizationBits = sparklineQuantizationBits;
+        this.random = new SplittableRandom(seed);
+        this.ticksPerSample = (int) Math.max(1, 3_600_000 / tickMs);
+
+        prices = new double[coinCount];
+        supplies = new double[coinCount];
+        volatilities = new double[coinCount];
+        betas = new double[coinCount];
+        volumeRatios = new double[coinCount];
+        burstRemaining = new int[coinCount];
+        hourlySamples = new float[coinCount][SPARKLINE_POINTS];
+        sparklines = new Sparkline[coinCount];
+
+        // Market caps follow a power law by initial rank; smaller coins are more volatile
+        for (int i = 0; i < coinCount; i++) {
+            double marketCap = 1e12 / Math.pow(i + 1, 1.1);
+            prices[i] = Math.exp(random.nextDouble(-4, 10));
+            supplies[i] = marketCap / prices[i];
+            volatilities[i] = 0.5 + Math.min(2.0, Math.log10(i + 1) * 0.3) + random.nextDouble(0, 0.3);
+            betas[i] = random.nextDouble(0.5, 1.5);
+            volumeRatios[i] = Math.exp(random.nextDouble(-4, -1));
+            Arrays.fill(hourlySamples[i], (float) prices[i]);
+            sparklines[i] = Sparkline.encode(toDoubles(hourlySamples[i], 0), SPARKLINE_POINTS, sparklineQuantizationBits);
+        }
+        rankOrder = IntStream.range(0, coinCount).toArray();
+        rankOf = IntStream.range(0, coinCount).toArray();
+        // A different start day per seed, but never the wall clock, so runs are reproducible
+        clock = EPOCH.plusDays(Math.floorMod(seed, 365L));
+
+        log.info("Synthetic market: {} coins, {} ms ticks, seed {}", coinCount, tickMs, seed);
+    }
+
+    @Override
+    public String getName() {
+        return "synthetic";
+    }
+
+    @Override
+    public synchronized List<CryptoPrice> fetchPrices() {
+        advance();
+        return snapshot(0, coinCount);
+    }
+
+    // Only materializes the requested ranks, so tiers over a large universe stay cheap
+    @Override
+    public synchronized List<CryptoPrice> fetchRankRange(int fromRank, int toRank) {
+        if (tick == 0 || !servedRanges.add(List.of(fromRank, toRank))) {
+            advance();
+            servedRanges.add(List.of(fromRank, toRank));
+        }
+        return snapshot(Math.max(0, fromRank - 1), Math.min(coinCount, toRank));
+    }
+
+    @Override
+    public synchronized List<CryptoPrice> fetchByIds(Collection<String> coinIds) {
+        return lookup(coinIds, ID_PREFIX);
+    }
+
+    // Every synthetic symbol is unique, so each one matches a single coin
+    @Override
+    public synchronized List<CryptoPrice> fetchBySymbols(Collection<String> symbols) {
+        return lookup(symbols.stream().map(String::toUpperCase).toList(), SYMBOL_PREFIX);
+    }
+
+    // Ids and symbols carry the coin index, so a lookup costs one entry per key rather than a pass over the universe
+    private List<CryptoPrice> lookup(Collection<String> keys, String prefix) {
+        Set<Integer> coins = new LinkedHashSet<>();
+        for (String key : keys) {
+            int coin = coinIndex(key, prefix);
+            if (coin >= 0) {
+                coins.add(coin);
+            }
+        }
+        List<CryptoPrice> cryptoPrices = new ArrayList<>(coins.size());
+        for (int coin : coins) {
+            cryptoPrices.add(toCryptoPrice(coin, rankOf[coin] + 1));
+        }
+        return cryptoPrices;
+    }
+
+    private int coinIndex(String key, String prefix) {
+        if (key == null || !key.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            int coin = Integer.parseInt(key.substring(prefix.length()));
+            // Reject non-canonical forms such as leading zeros, which would alias another coin
+            return coin >= 0 && coin < coinCount && key.equals(prefix + coin) ? coin : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void advance() {
+        double dt = tickMs / MILLIS_PER_YEAR;
+        double marketShock = random.nextGaussian() * 0.6 * Math.sqrt(dt);
+
+        for (int i = 0; i < coinCount; i++) {
+            if (burstRemaining[i] > 0) {
+                burstRemaining[i]--;
+            } else if (random.nextDouble() < burstProbability) {
+                burstRemaining[i] = burstTicks;
+            }
+            double sigma = volatilities[i] * (burstRemaining[i] > 0 ? burstMultiplier : 1);
+            double idiosyncratic = random.nextGaussian() * sigma * Math.sqrt(dt);
+            prices[i] *= Math.exp(betas[i] * marketShock + idiosyncratic - 0.5 * sigma * sigma * dt);
+        }
+
+        tick++;
+        servedRanges.clear();
+        clock = clock.plusNanos(tickMs * 1_000_000);
+        if (tick % ticksPerSample == 0) {
+            int slot = samples++ % SPARKLINE_POINTS;
+            for (int i = 0; i < coinCount; i++) {
+                hourlySamples[i][slot] = (float) prices[i];
+                sparklines[i] = Sparkline.encode(toDoubles(hourlySamples[i], samples), SPARKLINE_POINTS, sparklineQuantizationBits);
+            }
+        }
+
+        rankByMarketCap();
+    }
+
+    /*
+     * Sorts primitive keys instead of boxed indices: positive doubles order
+     * like their bit patterns, so the top bits of the market cap are packed
+     * above the coin index and sorted ascending after negation.
+     */
+    private void rankByMarketCap() {
+        long[] keys = new long[coinCount];
+        for (int i = 0; i < coinCount; i++) {
+            long capBits = Double.doubleToLongBits(prices[i] * supplies[i]) >>> INDEX_BITS;
+            keys[i] = (-capBits << INDEX_BITS) | i;
+        }
+        Arrays.sort(keys);
+        for (int rank = 0; rank < coinCount; rank++) {
+            rankOrder[rank] = (int) (keys[rank] & INDEX_MASK);
+            rankOf[rankOrder[rank]] = rank;
+        }
+    }
+
+    private List<CryptoPrice> snapshot(int from, int to) {
+        List<CryptoPrice> cryptoPrices = new ArrayList<>(Math.max(0, to - from));
+        for (int rank = from; rank < to; rank++) {
+            cryptoPrices.add(toCryptoPrice(rankOrder[rank], rank + 1));
+        }
+        return cryptoPrices;
+    }
+
+    private CryptoPrice toCryptoPrice(int coin, int rank) {
+        double price = prices[coin];
+        double marketCap = price * supplies[coin];
+
+        CryptoPrice cryptoPrice = new CryptoPrice();
+        cryptoPrice.setCoinId(coinId(coin));
+        cryptoPrice.setSymbol(SYMBOL_PREFIX + coin);
+        cryptoPrice.setName("Synthetic Coin " + coin);
+        cryptoPrice.setCurrentPrice(decimal(price));
+        cryptoPrice.setPriceChangePercentage1h(decimal(changeSince(coin, 1)));
+        cryptoPrice.setPriceChangePercentage24h(decimal(changeSince(coin, 24)));
+        cryptoPrice.setPriceChangePercentage7d(decimal(changeSince(coin, SPARKLINE_POINTS)));
+        cryptoPrice.setMarketCap(decimal(marketCap));
+        cryptoPrice.setTotalVolume(decimal(marketCap * volumeRatios[coin] * (burstRemaining[coin] > 0 ? burstMultiplier : 1)));
+        cryptoPrice.setMarketCapRank(rank);
+        cryptoPrice.setCirculatingSupply(decimal(supplies[coin]));
+        cryptoPrice.setSparkline7d(sparklines[coin]);
+        cryptoPrice.setLastUpdated(clock);
+        return cryptoPrice;
+    }
+
+    // Percentage change against the hourly sample about `hours` old; unwritten slots hold the starting price
+    private double changeSince(int coin, int hours) {
+        int slot = Math.floorMod(samples - 1 - Math.min(hours, SPARKLINE_POINTS - 1), SPARKLINE_POINTS);
+        double then = hourlySamples[coin][slot];
+        return then > 0 ? (prices[coin] / then - 1) * 100 : 0;
+    }
+
+    private static String coinId(int coin) {
+        return ID_PREFIX + coin;
+    }
+
+    private static BigDecimal decimal(double value) {
+        return BigDecimal.valueOf(value);
+    }
+
+    // Unrolls the ring buffer oldest-first
+    private static double[] toDoubles(float[] ring, int samples) {
+        double[] values = new double[ring.length];
+        for (int i = 0; i < ring.length; i++) {
+            values[i] = ring[(samples + i) % ring.length];
+        }
+        return values;
+    }
+}
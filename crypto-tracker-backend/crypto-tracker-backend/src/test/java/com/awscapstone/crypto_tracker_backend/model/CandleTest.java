@@ -0,0 +1,46 @@
+package com.awscapstone.crypto_tracker_backend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CandleTest {
+
+    @Test
+    void ticksMoveHighLowAndCloseButNeverOpen() {
+        Candle candle = first("10")
+                .with(new BigDecimal("12"), new BigDecimal("200"))
+                .with(new BigDecimal("9"), new BigDecimal("300"))
+                .with(new BigDecimal("11"), new BigDecimal("400"));
+
+        assertThat(candle.open()).isEqualByComparingTo("10");
+        assertThat(candle.high()).isEqualByComparingTo("12");
+        assertThat(candle.low()).isEqualByComparingTo("9");
+        assertThat(candle.close()).isEqualByComparingTo("11");
+        assertThat(candle.volume()).isEqualByComparingTo("400");
+        assertThat(candle.ticks()).isEqualTo(4);
+    }
+
+    @Test
+    void earlierPartKeepsItsOpenAndWidensTheRange() {
+        Candle earlier = new Candle("BTC", CandleResolution.ONE_HOUR, 0, new BigDecimal("5"), new BigDecimal("20"),
+                new BigDecimal("4"), new BigDecimal("8"), new BigDecimal("50"), 7);
+        Candle later = first("10").with(new BigDecimal("25"), new BigDecimal("300"));
+
+        Candle merged = later.mergeEarlier(earlier);
+
+        assertThat(merged.open()).isEqualByComparingTo("5");
+        assertThat(merged.high()).isEqualByComparingTo("25");
+        assertThat(merged.low()).isEqualByComparingTo("4");
+        assertThat(merged.close()).isEqualByComparingTo("25");
+        assertThat(merged.volume()).isEqualByComparingTo("300");
+        assertThat(merged.ticks()).isEqualTo(9);
+    }
+
+    private static Candle first(String price) {
+        BigDecimal value = new BigDecimal(price);
+        return new Candle("BTC", CandleResolution.ONE_HOUR, 0, value, value, value, value, new BigDecimal("100"), 1);
+    }
+}
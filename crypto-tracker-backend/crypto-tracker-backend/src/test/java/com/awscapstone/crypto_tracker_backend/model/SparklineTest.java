@@ -0,0 +1,91 @@
+package com.awscapstone.crypto_tracker_backend.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SparklineTest {
+
+    private static final double[] WEEK = {64_000.5, 64_120.25, 63_980.0, 63_980.0, 65_010.75, 64_500.0};
+
+    @Test
+    void float32FormatKeepsFloatPrecision() {
+        Sparkline sparkline = Sparkline.encode(WEEK, WEEK.length, 0);
+
+        assertThat(sparkline.size()).isEqualTo(WEEK.length);
+        double[] values = sparkline.toArray();
+        for (int i = 0; i < WEEK.length; i++) {
+            assertThat(values[i]).isEqualTo((float) WEEK[i]);
+        }
+    }
+
+    @Test
+    void quantizedValuesStayWithinHalfAStep() {
+        int bits = 12;
+        Sparkline sparkline = Sparkline.encode(WEEK, WEEK.length, bits);
+
+        double step = (65_010.75 - 63_980.0) / ((1 << bits) - 1);
+        double[] values = sparkline.toArray();
+        assertThat(values).hasSize(WEEK.length);
+        for (int i = 0; i < WEEK.length; i++) {
+            assertThat(values[i]).isCloseTo(WEEK[i], within(step / 2 + 1e-9));
+        }
+        // The extremes sit exactly on the grid
+        assertThat(values[2]).isEqualTo(63_980.0);
+    }
+
+    @Test
+    void deltasAreSmallerThanFloats() {
+        double[] values = new double[168];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 100 + Math.sin(i / 10.0);
+        }
+
+        int quantized = Sparkline.encode(values, values.length, 16).toBytes().length;
+        int floats = Sparkline.encode(values, values.length, 0).toBytes().length;
+
+        assertThat(quantized).isLessThan(floats);
+    }
+
+    @Test
+    void flatSeriesDecodesExactly() {
+        double[] flat = {5.0, 5.0, 5.0};
+
+        assertThat(Sparkline.encode(flat, flat.length, 16).toArray()).containsExactly(5.0, 5.0, 5.0);
+    }
+
+    @Test
+    void onlyTheGivenLengthIsEncoded() {
+        Sparkline sparkline = Sparkline.encode(WEEK, 2, 0);
+
+        assertThat(sparkline.toArray()).containsExactly((float) WEEK[0], (float) WEEK[1]);
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        Sparkline sparkline = Sparkline.encode(WEEK, WEEK.length, 16);
+
+        assertThat(Sparkline.fromBytes(sparkline.toBytes())).isEqualTo(sparkline);
+        assertThat(Sparkline.fromBytes(null).isEmpty()).isTrue();
+        assertThat(Sparkline.fromBytes(new byte[0])).isSameAs(Sparkline.empty());
+    }
+
+    @Test
+    void legacyJsonIsReadAndBadJsonIsEmpty() {
+        assertThat(Sparkline.fromJson("[1.5, 2.5, null, 3.5]", 0).toArray()).containsExactly(1.5, 2.5, 3.5);
+        assertThat(Sparkline.fromJson("not json", 16).isEmpty()).isTrue();
+        assertThat(Sparkline.fromJson(" ", 16).isEmpty()).isTrue();
+    }
+
+    @Test
+    void serializesAsAPlainNumberArray() throws JsonProcessingException {
+        double[] values = {1.5, 2.25};
+
+        String json = new ObjectMapper().writeValueAsString(Sparkline.encode(values, values.length, 0));
+
+        assertThat(json).isEqualTo("[1.5,2.25]");
+    }
+}
@@ -0,0 +1,143 @@
+package com.awscapstone.crypto_tracker_backend.repository;
+
+import com.awscapstone.crypto_tracker_backend.service.CloudWatchService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class ParallelScannerTest {
+
+    private static final int PAGES_PER_SEGMENT = 3;
+    private static final int ITEMS_PER_PAGE = 4;
+
+    // Stands in for the SDK's completion threads
+    private final ExecutorService sdkThreads = Executors.newFixedThreadPool(2, runnable -> new Thread(runnable, "sdk-completion"));
+    private final List<ScanRequest> requests = new CopyOnWriteArrayList<>();
+    private ParallelScanner scanner;
+
+    @AfterEach
+    void tearDown() {
+        sdkThreads.shutdownNow();
+        if (scanner != null) {
+            scanner.shutdown();
+        }
+    }
+
+    @Test
+    void followsPaginationInEverySegment() {
+        scanner = scanner(pagedClient(null));
+
+        List<String> seen = new CopyOnWriteArrayList<>();
+        ParallelScanner.ScanStats stats = scanner.scan(ScanRequest.builder().tableName("Prices").build(),
+                item -> seen.add(item.get("id").s()));
+
+        int segments = 4;
+        assertThat(seen).hasSize(segments * PAGES_PER_SEGMENT * ITEMS_PER_PAGE).doesNotHaveDuplicates();
+        assertThat(stats.pages()).isEqualTo(segments * PAGES_PER_SEGMENT);
+        assertThat(stats.items()).isEqualTo(seen.size());
+        assertThat(stats.segmentsDone()).isEqualTo(segments);
+
+        // Every page after the first continues from the key the previous page of the same segment returned
+        for (ScanRequest request : requests) {
+            assertThat(request.totalSegments()).isEqualTo(segments);
+            int page = request.exclusiveStartKey() == null || request.exclusiveStartKey().isEmpty()
+                    ? 0 : Integer.parseInt(request.exclusiveStartKey().get("page").n()) + 1;
+            assertThat(page).isLessThan(PAGES_PER_SEGMENT);
+        }
+        assertThat(requests).hasSize(segments * PAGES_PER_SEGMENT);
+    }
+
+    @Test
+    void consumerRunsOffSdkThreadsAndNeverConcurrently() {
+        scanner = scanner(pagedClient(null));
+
+        AtomicInteger inConsumer = new AtomicInteger();
+        AtomicInteger maxInConsumer = new AtomicInteger();
+        List<String> threads = new CopyOnWriteArrayList<>();
+        scanner.scan(ScanRequest.builder().tableName("Prices").build(), item -> {
+            maxInConsumer.accumulateAndGet(inConsumer.incrementAndGet(), Math::max);
+            threads.add(Thread.currentThread().getName());
+            try {
+                // Blocking here must not hold up the SDK threads other segments complete on
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inConsumer.decrementAndGet();
+        });
+
+        assertThat(maxInConsumer.get()).isEqualTo(1);
+        assertThat(threads).noneMatch(name -> name.startsWith("sdk-"));
+    }
+
+    @Test
+    void failedPageFailsTheScan() {
+        scanner = scanner(pagedClient(1));
+
+        assertThatThrownBy(() -> scanner.scan(ScanRequest.builder().tableName("Prices").build(), item -> { }))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Failed to scan Prices");
+        assertThat(scanner.activeScans()).isEmpty();
+    }
+
+    private ParallelScanner scanner(DynamoDbAsyncClient client) {
+        ParallelScanner parallelScanner = new ParallelScanner(client, mock(CloudWatchService.class));
+        ReflectionTestUtils.setField(parallelScanner, "defaultSegments", 4);
+        ReflectionTestUtils.setField(parallelScanner, "progressLogMs", 60_000L);
+        return parallelScanner;
+    }
+
+    // Each segment has PAGES_PER_SEGMENT pages; the page numbered failOnPage (if any) fails
+    private DynamoDbAsyncClient pagedClient(Integer failOnPage) {
+        return new DynamoDbAsyncClient() {
+            @Override
+            public CompletableFuture<ScanResponse> scan(ScanRequest request) {
+                requests.add(request);
+                int segment = request.segment();
+                int page = request.exclusiveStartKey() == null || request.exclusiveStartKey().isEmpty()
+                        ? 0 : Integer.parseInt(request.exclusiveStartKey().get("page").n()) + 1;
+
+                return CompletableFuture.supplyAsync(() -> {
+                    if (failOnPage != null && page == failOnPage) {
+                        throw new IllegalStateException("page " + page + " unavailable");
+                    }
+                    List<Map<String, AttributeValue>> items = new ArrayList<>();
+                    for (int i = 0; i < ITEMS_PER_PAGE; i++) {
+                        items.add(Map.of("id", AttributeValue.builder().s(segment + "-" + page + "-" + i).build()));
+                    }
+                    ScanResponse.Builder response = ScanResponse.builder().items(items);
+                    if (page < PAGES_PER_SEGMENT - 1) {
+                        response.lastEvaluatedKey(Map.of("page", AttributeValue.builder().n(String.valueOf(page)).build()));
+                    }
+                    return response.build();
+                }, sdkThreads);
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,122 @@
+package com.awscapstone.crypto_tracker_backend.scheduler;
+
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.model.PriceSnapshot;
+import com.awscapstone.crypto_tracker_backend.scheduler.TieredRefreshPlanner.Plan;
+import com.awscapstone.crypto_tracker_backend.scheduler.TieredRefreshPlanner.RankRange;
+import com.awscapstone.crypto_tracker_backend.scheduler.TieredRefreshPlanner.Tier;
+import com.awscapstone.crypto_tracker_backend.service.CoinDemandTracker;
+import com.awscapstone.crypto_tracker_backend.service.PriceSnapshotService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TieredRefreshPlannerTest {
+
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final CoinDemandTracker coinDemandTracker = mock(CoinDemandTracker.class);
+    private final PriceSnapshotService priceSnapshotService = mock(PriceSnapshotService.class);
+
+    @Test
+    void coldStartIsSpreadOverTicksHotTierFirst() {
+        TieredRefreshPlanner planner = planner(10);
+
+        Plan first = planner.plan(START);
+        assertThat(first.rankRanges()).hasSize(10);
+        assertThat(first.rankRanges().subList(0, 2)).containsExactly(new RankRange(1, 50), new RankRange(51, 100));
+
+        // 2 hot + 20 warm + 100 cold pages are all due at first; ten go out per tick until every page has been fetched once
+        Set<RankRange> seen = new HashSet<>();
+        Instant now = START;
+        for (int tick = 0; tick < 40; tick++) {
+            Plan plan = planner.plan(now);
+            assertThat(plan.rankRanges().size()).isLessThanOrEqualTo(10);
+            seen.addAll(plan.rankRanges());
+            planner.markRefreshed(plan, plan.rankRanges(), true, now);
+            now = now.plusSeconds(30);
+        }
+        assertThat(seen).hasSize(122);
+        assertThat(planner.tierAges(now).values()).allMatch(age -> age >= 0);
+    }
+
+    @Test
+    void onlySucceededPagesMoveForward() {
+        TieredRefreshPlanner planner = planner(0);
+
+        Plan plan = planner.plan(START);
+        List<RankRange> succeeded = plan.rankRanges().stream().filter(range -> !range.equals(new RankRange(51, 100))).toList();
+        planner.markRefreshed(plan, succeeded, true, START);
+
+        Plan next = planner.plan(START.plusSeconds(1));
+        assertThat(next.rankRanges()).containsExactly(new RankRange(51, 100));
+        assertThat(planner.tierAges(START.plusSeconds(1))).containsEntry(Tier.HOT, -1L).containsEntry(Tier.COLD, 1L);
+    }
+
+    @Test
+    void pagesComeDueAgainOnTheirTiersInterval() {
+        TieredRefreshPlanner planner = planner(0);
+
+        Plan plan = planner.plan(START);
+        planner.markRefreshed(plan, plan.rankRanges(), true, START);
+
+        assertThat(planner.plan(START.plusSeconds(10)).isEmpty()).isTrue();
+        // Within the 10% jitter allowance of the 30 second hot interval
+        assertThat(planner.plan(START.plusSeconds(28)).rankRanges())
+                .containsExactly(new RankRange(1, 50), new RankRange(51, 100));
+        assertThat(planner.plan(START.plus(Duration.ofMinutes(5))).rankRanges()).hasSize(2 + 20);
+    }
+
+    @Test
+    void demandPromotesCoinsOutsideThePlannedPages() {
+        TieredRefreshPlanner planner = planner(0);
+        Plan initial = planner.plan(START);
+        planner.markRefreshed(initial, initial.rankRanges(), true, START);
+
+        CryptoPrice popular = price("popular", "POP", 3000);
+        CryptoPrice quiet = price("quiet", "QT", 3001);
+        when(priceSnapshotService.getLastKnownGood()).thenReturn(new PriceSnapshot(List.of(popular, quiet), START));
+        when(coinDemandTracker.getScore("POP")).thenReturn(50.0);
+
+        Plan plan = planner.plan(START.plusSeconds(30));
+        assertThat(plan.promotedTiers()).containsExactly(Tier.HOT);
+        assertThat(plan.promotedIds()).containsExactly("popular");
+
+        // Not marked: the promoted coins stay due
+        planner.markRefreshed(plan, plan.rankRanges(), false, START.plusSeconds(30));
+        assertThat(planner.plan(START.plusSeconds(31)).promotedIds()).containsExactly("popular");
+    }
+
+    private TieredRefreshPlanner planner(int maxPagesPerTick) {
+        TieredRefreshPlanner planner = new TieredRefreshPlanner(coinDemandTracker, priceSnapshotService);
+        ReflectionTestUtils.setField(planner, "enabled", true);
+        ReflectionTestUtils.setField(planner, "hotSize", 100);
+        ReflectionTestUtils.setField(planner, "hotIntervalMs", 30_000L);
+        ReflectionTestUtils.setField(planner, "warmSize", 1000);
+        ReflectionTestUtils.setField(planner, "warmIntervalMs", 300_000L);
+        ReflectionTestUtils.setField(planner, "coldSize", 5000);
+        ReflectionTestUtils.setField(planner, "coldIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(planner, "pageSize", 50);
+        ReflectionTestUtils.setField(planner, "maxPagesPerTick", maxPagesPerTick);
+        ReflectionTestUtils.setField(planner, "promoteHotScore", 20.0);
+        ReflectionTestUtils.setField(planner, "promoteWarmScore", 3.0);
+        return planner;
+    }
+
+    private static CryptoPrice price(String coinId, String symbol, int rank) {
+        CryptoPrice price = new CryptoPrice();
+        price.setCoinId(coinId);
+        price.setSymbol(symbol);
+        price.setMarketCapRank(rank);
+        return price;
+    }
+}
@@ -0,0 +1,172 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.model.Candle;
+import com.awscapstone.crypto_tracker_backend.model.CandleResolution;
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class CandleServiceTest {
+
+    private final List<Map<String, AttributeValue>> written = new CopyOnWriteArrayList<>();
+    private final Map<String, Map<String, AttributeValue>> stored = new HashMap<>();
+
+    @Test
+    void ticksOfOnePeriodFoldIntoTheOpenCandle() {
+        CandleService service = service(Long.MAX_VALUE);
+        // A whole day ahead, so no candle counts as begun before the service started
+        long minute = CandleResolution.ONE_DAY.startOf(System.currentTimeMillis()) + Duration.ofDays(1).toMillis();
+
+        service.record(List.of(price("btc", "10", "100")), minute);
+        service.record(List.of(price("btc", "12", "200")), minute + 10_000);
+        service.record(List.of(price("btc", "9", "300")), minute + 20_000);
+        service.record(List.of(price("btc", "11", "400")), minute + 30_000);
+
+        Candle candle = openCandle(service, CandleResolution.ONE_MINUTE, minute);
+        assertThat(candle.symbol()).isEqualTo("BTC");
+        assertThat(candle.open()).isEqualByComparingTo("10");
+        assertThat(candle.high()).isEqualByComparingTo("12");
+        assertThat(candle.low()).isEqualByComparingTo("9");
+        assertThat(candle.close()).isEqualByComparingTo("11");
+        assertThat(candle.volume()).isEqualByComparingTo("400");
+        assertThat(candle.ticks()).isEqualTo(4);
+        assertThat(written).isEmpty();
+    }
+
+    @Test
+    void candleIsWrittenOnceItsPeriodIsOver() {
+        CandleService service = service(Long.MAX_VALUE);
+        long minute = CandleResolution.ONE_DAY.startOf(System.currentTimeMillis()) + Duration.ofDays(1).toMillis();
+
+        service.record(List.of(price("BTC", "10", "100")), minute);
+        service.record(List.of(price("BTC", "12", "100")), minute + 30_000);
+        service.record(List.of(price("BTC", "13", "100")), minute + 60_000);
+
+        // Only the 1m candle has ended; the wider ones are still open
+        assertThat(written).singleElement().satisfies(item -> {
+            assertThat(item.get("series").s()).isEqualTo("BTC#1m");
+            assertThat(item.get("start").n()).isEqualTo(String.valueOf(minute));
+            assertThat(item.get("o").n()).isEqualTo("10");
+            assertThat(item.get("c").n()).isEqualTo("12");
+            assertThat(item.get("n").n()).isEqualTo("2");
+        });
+        assertThat(openCandle(service, CandleResolution.ONE_MINUTE, minute + 60_000).open()).isEqualByComparingTo("13");
+        assertThat(openCandle(service, CandleResolution.FIVE_MINUTES, minute).ticks()).isEqualTo(3);
+    }
+
+    @Test
+    void candleBegunBeforeARestartIsMergedWithTheStoredPart() {
+        CandleService service = service(0);
+        long now = System.currentTimeMillis();
+        long day = CandleResolution.ONE_DAY.startOf(now);
+        stored.put("BTC#1d", Map.of(
+                "series", AttributeValue.builder().s("BTC#1d").build(),
+                "start", AttributeValue.builder().n(String.valueOf(day)).build(),
+                "o", AttributeValue.builder().n("5").build(),
+                "h", AttributeValue.builder().n("20").build(),
+                "l", AttributeValue.builder().n("4").build(),
+                "c", AttributeValue.builder().n("8").build(),
+                "v", AttributeValue.builder().n("50").build(),
+                "n", AttributeValue.builder().n("7").build()));
+
+        // The checkpoint writes the open candles, merging the stored part first
+        service.record(List.of(price("BTC", "10", "100")), now);
+
+        assertThat(written).filteredOn(item -> item.get("series").s().equals("BTC#1d")).singleElement().satisfies(item -> {
+            assertThat(item.get("o").n()).isEqualTo("5");
+            assertThat(item.get("h").n()).isEqualTo("20");
+            assertThat(item.get("l").n()).isEqualTo("4");
+            assertThat(item.get("c").n()).isEqualTo("10");
+            assertThat(item.get("n").n()).isEqualTo("8");
+        });
+        // The live candle keeps the stored part for later writes
+        Candle live = openCandle(service, CandleResolution.ONE_DAY, day);
+        assertThat(live.open()).isEqualByComparingTo("5");
+        assertThat(live.ticks()).isEqualTo(8);
+    }
+
+    private static Candle openCandle(CandleService service, CandleResolution resolution, long start) {
+        List<Candle> candles = service.getCandlesAsync("btc", resolution, start, start).join();
+        assertThat(candles).hasSize(1);
+        return candles.get(0);
+    }
+
+    private CandleService service(long checkpointMs) {
+        WriteRateController controller = new WriteRateController(mock(CloudWatchService.class));
+        ReflectionTestUtils.setField(controller, "initialConcurrency", 8);
+        ReflectionTestUtils.setField(controller, "minConcurrency", 1);
+        ReflectionTestUtils.setField(controller, "maxConcurrency", 64);
+        ReflectionTestUtils.setField(controller, "decreaseFactor", 0.5);
+        ReflectionTestUtils.setField(controller, "maxQueued", 100);
+
+        CandleService service = new CandleService(client(), mock(RetentionService.class), mock(CloudWatchService.class),
+                controller, "Candles");
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "checkpointMs", checkpointMs);
+        return service;
+    }
+
+    private static CryptoPrice price(String symbol, String currentPrice, String totalVolume) {
+        CryptoPrice price = new CryptoPrice();
+        price.setSymbol(symbol);
+        price.setCurrentPrice(new BigDecimal(currentPrice));
+        price.setTotalVolume(new BigDecimal(totalVolume));
+        return price;
+    }
+
+    // Answers at once: writes are recorded, reads see only the stored candles
+    private DynamoDbAsyncClient client() {
+        return new DynamoDbAsyncClient() {
+            @Override
+            public CompletableFuture<BatchWriteItemResponse> batchWriteItem(BatchWriteItemRequest request) {
+                request.requestItems().values().stream()
+                        .flatMap(List::stream)
+                        .map(WriteRequest::putRequest)
+                        .forEach(put -> written.add(put.item()));
+                return CompletableFuture.completedFuture(BatchWriteItemResponse.builder().build());
+            }
+
+            @Override
+            public CompletableFuture<GetItemResponse> getItem(GetItemRequest request) {
+                Map<String, AttributeValue> item = stored.get(request.key().get("series").s());
+                return CompletableFuture.completedFuture(item != null && item.get("start").equals(request.key().get("start"))
+                        ? GetItemResponse.builder().item(item).build()
+                        : GetItemResponse.builder().build());
+            }
+
+            @Override
+            public CompletableFuture<QueryResponse> query(QueryRequest request) {
+                return CompletableFuture.completedFuture(QueryResponse.builder().items(List.of()).build());
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.exception.UpstreamUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CircuitBreakerTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void opensAfterTheThresholdOfConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofMinutes(1));
+
+        fail(breaker);
+        fail(breaker);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        fail(breaker);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // Open calls are rejected without reaching the upstream
+        assertThatThrownBy(() -> breaker.call(calls::incrementAndGet)).isInstanceOf(UpstreamUnavailableException.class);
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, Duration.ofMinutes(1));
+
+        fail(breaker);
+        assertThat(breaker.call(() -> "ok")).isEqualTo("ok");
+        fail(breaker);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void onlyOneProbeGoesThroughOnceTheOpenPeriodHasPassed() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ZERO);
+        fail(breaker);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void probeOutcomeClosesOrReopensTheCircuit() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 5, Duration.ZERO);
+        for (int i = 0; i < 5; i++) {
+            fail(breaker);
+        }
+
+        // A failed probe reopens at once, without waiting for the threshold again
+        fail(breaker);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThat(breaker.call(() -> "ok")).isEqualTo("ok");
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private void fail(CircuitBreaker breaker) {
+        assertThatThrownBy(() -> breaker.call(() -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("upstream down");
+        })).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,127 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class CoinGeckoMarketsParserTest {
+
+    private final CoinGeckoMarketsParser parser = parser(0);
+
+    @Test
+    void readsEveryMappedFieldAndSkipsUnknownOnes() throws IOException {
+        List<CryptoPrice> prices = parser.parse(body("""
+                [{"id":"bitcoin","symbol":"btc","name":"Bitcoin","image":"https://img/btc.png",
+                  "current_price":42000.5,"market_cap":820000000000,"market_cap_rank":1,
+                  "total_volume":21000000000,"circulating_supply":19500000,"max_supply":21000000,
+                  "roi":{"times":12.5,"currency":"usd"},"ath_date":"2021-11-10T14:24:11.849Z",
+                  "price_change_percentage_1h_in_currency":0.25,
+                  "price_change_percentage_24h_in_currency":-1.5,
+                  "price_change_percentage_7d_in_currency":3.75,
+                  "last_updated":"2024-01-01T12:30:00.000Z",
+                  "sparkline_in_7d":{"price":[1.0,2.0,3.0]}}]
+                """));
+
+        assertThat(prices).hasSize(1);
+        CryptoPrice bitcoin = prices.get(0);
+        assertThat(bitcoin.getCoinId()).isEqualTo("bitcoin");
+        assertThat(bitcoin.getSymbol()).isEqualTo("BTC");
+        assertThat(bitcoin.getName()).isEqualTo("Bitcoin");
+        assertThat(bitcoin.getImage()).isEqualTo("https://img/btc.png");
+        assertThat(bitcoin.getCurrentPrice()).isEqualByComparingTo("42000.5");
+        assertThat(bitcoin.getMarketCap()).isEqualByComparingTo("820000000000");
+        assertThat(bitcoin.getMarketCapRank()).isEqualTo(1);
+        assertThat(bitcoin.getTotalVolume()).isEqualByComparingTo("21000000000");
+        assertThat(bitcoin.getCirculatingSupply()).isEqualByComparingTo("19500000");
+        assertThat(bitcoin.getMaxSupply()).isEqualByComparingTo("21000000");
+        assertThat(bitcoin.getPriceChangePercentage1h()).isEqualByComparingTo("0.25");
+        assertThat(bitcoin.getPriceChangePercentage24h()).isEqualByComparingTo("-1.5");
+        assertThat(bitcoin.getPriceChangePercentage7d()).isEqualByComparingTo("3.75");
+        assertThat(bitcoin.getLastUpdated()).isEqualTo(LocalDateTime.of(2024, 1, 1, 12, 30));
+        assertThat(bitcoin.getSparkline7d().toArray()).containsExactly(1.0, 2.0, 3.0);
+    }
+
+    @Test
+    void plain24hChangeIsTheFallbackForTheInCurrencyOne() throws IOException {
+        List<CryptoPrice> prices = parser.parse(body("""
+                [{"id":"a","symbol":"a","price_change_percentage_24h":2.5},
+                 {"id":"b","symbol":"b","price_change_percentage_24h":2.5,"price_change_percentage_24h_in_currency":4.0}]
+                """));
+
+        assertThat(prices).extracting(CryptoPrice::getPriceChangePercentage24h)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("2.5"), new BigDecimal("4.0"));
+    }
+
+    @Test
+    void nullsAndMissingFieldsGetDefaults() throws IOException {
+        List<CryptoPrice> prices = parser.parse(body("""
+                [{"id":"quiet","symbol":"qt","current_price":null,"market_cap_rank":null,
+                  "last_updated":"not a date","sparkline_in_7d":null}]
+                """));
+
+        CryptoPrice quiet = prices.get(0);
+        assertThat(quiet.getCurrentPrice()).isZero();
+        assertThat(quiet.getTotalVolume()).isZero();
+        assertThat(quiet.getPriceChangePercentage1h()).isZero();
+        assertThat(quiet.getMarketCapRank()).isZero();
+        assertThat(quiet.getMaxSupply()).isNull();
+        assertThat(quiet.getLastUpdated()).isNotNull();
+        assertThat(quiet.getSparkline7d().isEmpty()).isTrue();
+    }
+
+    @Test
+    void sparklineIsQuantizedWithTheConfiguredBits() throws IOException {
+        List<CryptoPrice> prices = parser(16).parse(body("""
+                [{"id":"eth","symbol":"eth","sparkline_in_7d":{"price":[2000.0,"x",2010.5,1995.25]}}]
+                """));
+
+        double[] values = prices.get(0).getSparkline7d().toArray();
+        assertThat(values).hasSize(3);
+        assertThat(values[0]).isCloseTo(2000.0, within(0.001));
+        assertThat(values[1]).isCloseTo(2010.5, within(0.001));
+        assertThat(values[2]).isCloseTo(1995.25, within(0.001));
+    }
+
+    @Test
+    void rejectsABodyThatIsNotAnArray() {
+        assertThatThrownBy(() -> parser.parse(body("{\"error\":\"rate limited\"}")))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void coinListGroupsIdsByUpperCaseSymbol() throws IOException {
+        Map<String, List<String>> idsBySymbol = parser.parseCoinList(body("""
+                [{"id":"uniswap","symbol":"uni","name":"Uniswap","platforms":{"ethereum":"0x1"}},
+                 {"id":"uni-clone","symbol":"UNI","name":"Clone"},
+                 {"id":"bitcoin","symbol":"btc"},
+                 {"symbol":"orphan"}]
+                """));
+
+        assertThat(idsBySymbol).containsOnlyKeys("UNI", "BTC");
+        assertThat(idsBySymbol.get("UNI")).containsExactly("uniswap", "uni-clone");
+    }
+
+    private static CoinGeckoMarketsParser parser(int quantizationBits) {
+        CoinGeckoMarketsParser parser = new CoinGeckoMarketsParser();
+        ReflectionTestUtils.setField(parser, "sparklineQuantizationBits", quantizationBits);
+        return parser;
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,257 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.model.BatchWriteResult;
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.model.PriceQuote;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class DynamoDBServiceTest {
+
+    private static final int MAX_CONCURRENCY = 16;
+    private static final int MAX_QUEUED = 50;
+
+    private final ScheduledExecutorService sdkThreads = Executors.newScheduledThreadPool(4);
+    private final Set<String> appended = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final List<UpdateItemRequest> updates = new CopyOnWriteArrayList<>();
+    private final List<QueryRequest> queries = new CopyOnWriteArrayList<>();
+    private int throttleEvery = 7;
+    private boolean alreadyAppended;
+    private QueryResponse queryResponse = QueryResponse.builder().items(List.of()).build();
+
+    @AfterEach
+    void tearDown() {
+        sdkThreads.shutdownNow();
+    }
+
+    @Test
+    void tickLargerThanTheWriteQueueIsAppendedInFull() {
+        WriteRateController controller = controller();
+        DynamoDBService service = service(controller);
+
+        // Another flow keeps the shared limit busy while the tick is written
+        List<CompletableFuture<String>> otherFlow = new ArrayList<>();
+        for (int i = 0; i < MAX_QUEUED; i++) {
+            otherFlow.add(controller.submit(WriteRateController.Flow.CANDLES,
+                    () -> CompletableFuture.supplyAsync(() -> "ok", CompletableFuture.delayedExecutor(1, TimeUnit.MILLISECONDS))));
+        }
+
+        List<CryptoPrice> tick = new ArrayList<>();
+        for (int i = 0; i < 10 * MAX_QUEUED; i++) {
+            tick.add(price("C" + i));
+        }
+        BatchWriteResult result = service.storeCryptoDataAsync(tick).orTimeout(30, TimeUnit.SECONDS).join();
+
+        assertThat(result.written()).isEqualTo(tick.size());
+        assertThat(result.failed()).isZero();
+        assertThat(result.retries()).isPositive();
+        assertThat(appended).hasSize(tick.size());
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(MAX_CONCURRENCY);
+        assertThat(otherFlow).allMatch(write -> write.isDone() && !write.isCompletedExceptionally());
+    }
+
+    @Test
+    void appendOnlyAcceptsOffsetsPastTheBucketsLastTick() {
+        throttleEvery = 0;
+        DynamoDBService service = service(controller());
+
+        long before = System.currentTimeMillis();
+        service.storeCryptoDataAsync(List.of(price("BTC"))).join();
+        long after = System.currentTimeMillis();
+
+        UpdateItemRequest request = updates.get(0);
+        long bucket = Long.parseLong(request.key().get("bucket").n());
+        long offset = Long.parseLong(request.expressionAttributeValues().get(":offset").n());
+        assertThat(request.key().get("symbol").s()).isEqualTo("BTC");
+        assertThat(bucket % TimeUnit.HOURS.toMillis(1)).isZero();
+        assertThat(bucket + offset * 1000).isBetween(before - 999, after);
+        assertThat(request.conditionExpression()).isEqualTo("attribute_not_exists(#last) OR #last < :offset");
+        assertThat(request.expressionAttributeNames()).containsEntry("#last", "last");
+        assertThat(request.updateExpression()).contains("#last = :offset").contains("#p = list_append(if_not_exists(#p, :empty), :p)");
+    }
+
+    @Test
+    void failedAppendConditionMeansTheTickIsAlreadyStored() {
+        throttleEvery = 0;
+        alreadyAppended = true;
+        DynamoDBService service = service(controller());
+
+        BatchWriteResult result = service.storeCryptoDataAsync(List.of(price("BTC"), price("ETH"))).join();
+
+        assertThat(result.written()).isEqualTo(2);
+        assertThat(result.failed()).isZero();
+        assertThat(result.retries()).isZero();
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void coinsSharingASymbolLeaveOnlyTheBestRankedOne() {
+        throttleEvery = 0;
+        CryptoPrice obscure = price("UNI", "uni-clone", 900, "2");
+        CryptoPrice uniswap = price("UNI", "uniswap", 20, "7");
+        DynamoDBService service = service(controller());
+
+        BatchWriteResult result = service.storeCryptoDataAsync(List.of(obscure, uniswap, uniswap, price("BTC"))).join();
+
+        assertThat(result.written()).isEqualTo(2);
+        assertThat(result.skipped()).isEqualTo(1);
+        assertThat(updates).filteredOn(request -> request.key().get("symbol").s().equals("UNI"))
+                .singleElement()
+                .satisfies(request -> assertThat(request.expressionAttributeValues().get(":p").l().get(0).n()).isEqualTo("7"));
+    }
+
+    @Test
+    void latestFromHistoryIsTheLastTickOfTheNewestBucket() {
+        long bucket = 1_700_000_000_000L - 1_700_000_000_000L % 3_600_000;
+        queryResponse = QueryResponse.builder().items(List.of(Map.of(
+                "symbol", AttributeValue.builder().s("BTC").build(),
+                "bucket", AttributeValue.builder().n(String.valueOf(bucket)).build(),
+                "t", numbers("0", "30"),
+                "p", numbers("100", "101.5"),
+                "v", numbers("5", "6"),
+                "c", numbers("1000", "1015")))).build();
+        DynamoDBService service = service(controller());
+
+        CryptoPrice latest = service.getLatestFromHistoryAsync("btc").join();
+
+        assertThat(queries.get(0).scanIndexForward()).isFalse();
+        assertThat(queries.get(0).limit()).isEqualTo(1);
+        assertThat(queries.get(0).expressionAttributeValues().get(":symbol").s()).isEqualTo("BTC");
+        assertThat(latest.getCurrentPrice()).isEqualByComparingTo("101.5");
+        assertThat(latest.getTotalVolume()).isEqualByComparingTo("6");
+        assertThat(latest.getMarketCap()).isEqualByComparingTo("1015");
+        assertThat(latest.getLastUpdated().toInstant(ZoneOffset.UTC).toEpochMilli()).isEqualTo(bucket + 30_000);
+    }
+
+    @Test
+    void latestQuoteReadsOnlyTheTickPrices() {
+        long bucket = 1_700_000_000_000L - 1_700_000_000_000L % 3_600_000;
+        queryResponse = QueryResponse.builder().items(List.of(Map.of(
+                "bucket", AttributeValue.builder().n(String.valueOf(bucket)).build(),
+                "t", numbers("0", "30"),
+                "p", numbers("100", "101.5")))).build();
+        DynamoDBService service = service(controller());
+
+        PriceQuote quote = service.getLatestQuoteFromHistoryAsync("BTC").join();
+
+        assertThat(queries.get(0).projectionExpression()).isEqualTo("#bucket, #t, #p");
+        assertThat(queries.get(0).expressionAttributeNames()).containsOnlyKeys("#bucket", "#t", "#p");
+        assertThat(quote.symbol()).isEqualTo("BTC");
+        assertThat(quote.currentPrice()).isEqualByComparingTo("101.5");
+        assertThat(quote.lastUpdated().toInstant(ZoneOffset.UTC).toEpochMilli()).isEqualTo(bucket + 30_000);
+    }
+
+    @Test
+    void coinWithoutHistoryHasNoLatestTick() {
+        assertThat(service(controller()).getLatestFromHistoryAsync("NONE").join()).isNull();
+    }
+
+    private static AttributeValue numbers(String... values) {
+        return AttributeValue.builder().l(Arrays.stream(values)
+                .map(value -> AttributeValue.builder().n(value).build())
+                .toList()).build();
+    }
+
+    private DynamoDBService service(WriteRateController controller) {
+        DynamoDBService service = new DynamoDBService(client(), mock(RetentionService.class),
+                controller, "Users", "Watchlist", "PriceHistory");
+        ReflectionTestUtils.setField(service, "bucketMinutes", 60);
+        ReflectionTestUtils.setField(service, "writeMaxAttempts", 8);
+        ReflectionTestUtils.setField(service, "writeBaseBackoffMs", 1L);
+        ReflectionTestUtils.setField(service, "writeMaxBackoffMs", 20L);
+        return service;
+    }
+
+    private static WriteRateController controller() {
+        WriteRateController controller = new WriteRateController(mock(CloudWatchService.class));
+        ReflectionTestUtils.setField(controller, "initialConcurrency", 8);
+        ReflectionTestUtils.setField(controller, "minConcurrency", 1);
+        ReflectionTestUtils.setField(controller, "maxConcurrency", MAX_CONCURRENCY);
+        ReflectionTestUtils.setField(controller, "decreaseFactor", 0.5);
+        ReflectionTestUtils.setField(controller, "maxQueued", MAX_QUEUED);
+        return controller;
+    }
+
+    private static CryptoPrice price(String symbol) {
+        return price(symbol, symbol.toLowerCase(), 0, "1");
+    }
+
+    private static CryptoPrice price(String symbol, String coinId, int rank, String currentPrice) {
+        CryptoPrice price = new CryptoPrice();
+        price.setCoinId(coinId);
+        price.setSymbol(symbol);
+        price.setMarketCapRank(rank);
+        price.setCurrentPrice(new BigDecimal(currentPrice));
+        return price;
+    }
+
+    // Completes appends after a short delay and throttles every throttleEvery-th call
+    private DynamoDbAsyncClient client() {
+        return new DynamoDbAsyncClient() {
+            @Override
+            public CompletableFuture<UpdateItemResponse> updateItem(UpdateItemRequest request) {
+                int call = calls.incrementAndGet();
+                updates.add(request);
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                CompletableFuture<UpdateItemResponse> response = new CompletableFuture<>();
+                sdkThreads.schedule(() -> {
+                    inFlight.decrementAndGet();
+                    if (alreadyAppended) {
+                        response.completeExceptionally(ConditionalCheckFailedException.builder().message("stale offset").build());
+                    } else if (throttleEvery > 0 && call % throttleEvery == 0) {
+                        response.completeExceptionally(ProvisionedThroughputExceededException.builder().message("slow down").build());
+                    } else {
+                        appended.add(request.key().get("symbol").s());
+                        response.complete(UpdateItemResponse.builder().build());
+                    }
+                }, 200, TimeUnit.MICROSECONDS);
+                return response;
+            }
+
+            @Override
+            public CompletableFuture<QueryResponse> query(QueryRequest request) {
+                queries.add(request);
+                return CompletableFuture.completedFuture(queryResponse);
+            }
+
+            @Override
+            public String serviceName() {
+                return "dynamodb";
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,180 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.model.Sparkline;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LatestPriceServiceTest {
+
+    @Test
+    void everyStoredFieldRoundTripsExactly() {
+        CryptoPrice bitcoin = bitcoin();
+
+        List<CryptoPrice> decoded = LatestPriceService.decode(List.of(LatestPriceService.encode(List.of(bitcoin))));
+
+        assertThat(decoded).singleElement().satisfies(price -> {
+            assertThat(price.getCoinId()).isEqualTo("bitcoin");
+            assertThat(price.getSymbol()).isEqualTo("BTC");
+            // Same scale, not just the same value
+            assertThat(price.getCurrentPrice()).isEqualTo(new BigDecimal("42000.50"));
+            assertThat(price.getPriceChangePercentage1h()).isEqualTo(new BigDecimal("-0.125"));
+            assertThat(price.getPriceChangePercentage24h()).isEqualTo(new BigDecimal("1.5"));
+            assertThat(price.getPriceChangePercentage7d()).isEqualTo(new BigDecimal("3.75"));
+            assertThat(price.getTotalVolume()).isEqualTo(new BigDecimal("21000000000"));
+            assertThat(price.getMarketCap()).isEqualTo(new BigDecimal("8.2E+11"));
+            assertThat(price.getMarketCapRank()).isEqualTo(1);
+            assertThat(price.getCirculatingSupply()).isEqualTo(new BigDecimal("19500000"));
+            assertThat(price.getMaxSupply()).isNull();
+            assertThat(price.getAth()).isEqualTo(new BigDecimal("69045"));
+            assertThat(price.getAthChangePercentage()).isEqualTo(new BigDecimal("-39.17"));
+            assertThat(price.getSparkline7d()).isEqualTo(bitcoin.getSparkline7d());
+            assertThat(price.getLastUpdated()).isEqualTo(LocalDateTime.of(2024, 1, 1, 12, 30, 15, 123_000_000));
+        });
+    }
+
+    @Test
+    void nameAndImageAreLeftToTheMetadataTable() {
+        CryptoPrice bitcoin = bitcoin();
+        bitcoin.setName("Bitcoin");
+        bitcoin.setImage("https://img/btc.png");
+
+        CryptoPrice decoded = LatestPriceService.decode(List.of(LatestPriceService.encode(List.of(bitcoin)))).get(0);
+
+        assertThat(decoded.getName()).isNull();
+        assertThat(decoded.getImage()).isNull();
+    }
+
+    @Test
+    void missingValuesStayMissing() {
+        CryptoPrice bare = new CryptoPrice();
+
+        CryptoPrice decoded = LatestPriceService.decode(List.of(LatestPriceService.encode(List.of(bare)))).get(0);
+
+        assertThat(decoded.getCoinId()).isNull();
+        assertThat(decoded.getCurrentPrice()).isNull();
+        assertThat(decoded.getMarketCapRank()).isZero();
+        assertThat(decoded.getSparkline7d().isEmpty()).isTrue();
+        assertThat(decoded.getLastUpdated()).isNull();
+    }
+
+    @Test
+    void decimalsLongerThanAByteRoundTrip() {
+        // 400 digits need well over 127 bytes unscaled, and the scale is past what a short holds
+        BigDecimal huge = new BigDecimal(new BigInteger("9".repeat(400)), 40_000);
+        CryptoPrice price = bitcoin();
+        price.setMarketCap(huge);
+
+        CryptoPrice decoded = LatestPriceService.decode(List.of(LatestPriceService.encode(List.of(price)))).get(0);
+
+        assertThat(decoded.getMarketCap()).isEqualTo(huge);
+        assertThat(decoded.getAth()).isEqualTo(new BigDecimal("69045"));
+    }
+
+    @Test
+    void chunksAreJoinedBeforeDecoding() {
+        CryptoPrice ethereum = bitcoin();
+        ethereum.setCoinId("ethereum");
+        ethereum.setSymbol("ETH");
+        byte[] encoded = LatestPriceService.encode(List.of(bitcoin(), ethereum));
+
+        List<byte[]> chunks = List.of(
+                Arrays.copyOfRange(encoded, 0, 7),
+                Arrays.copyOfRange(encoded, 7, encoded.length / 2),
+                Arrays.copyOfRange(encoded, encoded.length / 2, encoded.length));
+
+        assertThat(LatestPriceService.decode(chunks)).extracting(CryptoPrice::getCoinId).containsExactly("bitcoin", "ethereum");
+    }
+
+    @Test
+    void versionOneSnapshotsStillDecodeWithNameAndImage() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeByte(1);
+            out.writeInt(1);
+            writeString(out, "bitcoin");
+            writeString(out, "BTC");
+            writeString(out, "Bitcoin");
+            writeString(out, "https://img/btc.png");
+            writeDecimal(out, new BigDecimal("42000.5"));
+            for (int i = 0; i < 5; i++) {
+                writeDecimal(out, null);
+            }
+            out.writeInt(7);
+            for (int i = 0; i < 4; i++) {
+                writeDecimal(out, null);
+            }
+            out.writeInt(0);
+            out.writeLong(-1);
+        }
+
+        CryptoPrice decoded = LatestPriceService.decode(List.of(bytes.toByteArray())).get(0);
+
+        assertThat(decoded.getName()).isEqualTo("Bitcoin");
+        assertThat(decoded.getImage()).isEqualTo("https://img/btc.png");
+        assertThat(decoded.getCurrentPrice()).isEqualTo(new BigDecimal("42000.5"));
+        assertThat(decoded.getMarketCapRank()).isEqualTo(7);
+    }
+
+    @Test
+    void unknownVersionIsRejected() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeByte(9);
+            out.writeInt(0);
+        }
+
+        assertThatThrownBy(() -> LatestPriceService.decode(List.of(bytes.toByteArray())))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("9");
+    }
+
+    private static CryptoPrice bitcoin() {
+        CryptoPrice price = new CryptoPrice();
+        price.setCoinId("bitcoin");
+        price.setSymbol("BTC");
+        price.setCurrentPrice(new BigDecimal("42000.50"));
+        price.setPriceChangePercentage1h(new BigDecimal("-0.125"));
+        price.setPriceChangePercentage24h(new BigDecimal("1.5"));
+        price.setPriceChangePercentage7d(new BigDecimal("3.75"));
+        price.setTotalVolume(new BigDecimal("21000000000"));
+        price.setMarketCap(new BigDecimal("8.2E+11"));
+        price.setMarketCapRank(1);
+        price.setCirculatingSupply(new BigDecimal("19500000"));
+        price.setAth(new BigDecimal("69045"));
+        price.setAthChangePercentage(new BigDecimal("-39.17"));
+        double[] week = {64_000.5, 64_120.25, 63_980.0};
+        price.setSparkline7d(Sparkline.encode(week, week.length, 16));
+        price.setLastUpdated(LocalDateTime.of(2024, 1, 1, 12, 30, 15, 123_000_000));
+        return price;
+    }
+
+    // The field encodings of format versions 1 and 2
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(true);
+        out.writeUTF(value);
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        if (value == null) {
+            out.writeByte(-1);
+            return;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeByte(unscaled.length);
+        out.write(unscaled);
+        out.writeShort(value.scale());
+    }
+}
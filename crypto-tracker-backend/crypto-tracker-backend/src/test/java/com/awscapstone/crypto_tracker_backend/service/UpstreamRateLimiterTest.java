@@ -0,0 +1,71 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpstreamRateLimiterTest {
+
+    @Test
+    void bucketStartsFullAndEmptiesAfterItsCapacity() {
+        UpstreamRateLimiter limiter = new UpstreamRateLimiter(5);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(0)).isTrue();
+        }
+        assertThat(limiter.tryAcquire(0)).isFalse();
+        assertThat(limiter.availableTokens()).isLessThan(1);
+    }
+
+    @Test
+    void tryAcquireLeavesTheReserveToBlockingCallers() {
+        UpstreamRateLimiter limiter = new UpstreamRateLimiter(5);
+
+        assertThat(limiter.tryAcquire(4)).isTrue();
+        assertThat(limiter.tryAcquire(4)).isFalse();
+        assertThat(limiter.availableTokens()).isGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    void acquireWaitsForTheNextTokenOnceEmpty() throws InterruptedException {
+        // One token every 100 ms
+        UpstreamRateLimiter limiter = new UpstreamRateLimiter(600);
+        while (limiter.tryAcquire(0)) {
+            // drain
+        }
+
+        long started = System.nanoTime();
+        limiter.acquire();
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertThat(waitedMs).isBetween(50L, 2_000L);
+    }
+
+    @Test
+    void pauseEmptiesTheBucketAndBlocksUntilItEnds() throws InterruptedException {
+        UpstreamRateLimiter limiter = new UpstreamRateLimiter(6_000);
+
+        limiter.pauseFor(Duration.ofMillis(200));
+        // A shorter Retry-After must not cut the pause already in force
+        limiter.pauseFor(Duration.ofMillis(1));
+        assertThat(limiter.tryAcquire(0)).isFalse();
+
+        long started = System.nanoTime();
+        limiter.acquire();
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertThat(waitedMs).isBetween(150L, 2_000L);
+    }
+
+    @Test
+    void quotaBelowOneStillAllowsOneRequest() {
+        UpstreamRateLimiter limiter = new UpstreamRateLimiter(0);
+
+        assertThat(limiter.getCapacity()).isEqualTo(1.0);
+        assertThat(limiter.tryAcquire(0)).isTrue();
+        assertThat(limiter.tryAcquire(0)).isFalse();
+    }
+}
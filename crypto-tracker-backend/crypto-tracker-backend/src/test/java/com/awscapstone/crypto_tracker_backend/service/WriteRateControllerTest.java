@@ -0,0 +1,133 @@
+package com.awscapstone.crypto_tracker_backend.service;
+
+import com.awscapstone.crypto_tracker_backend.service.WriteRateController.Flow;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class WriteRateControllerTest {
+
+    // Writes the test completes by hand, in the order they were started
+    private final List<CompletableFuture<String>> started = new ArrayList<>();
+
+    @Test
+    void successesRaiseTheLimitByAboutOnePerLimitsWorth() {
+        WriteRateController controller = controller(4, 10);
+
+        for (int i = 0; i < 4; i++) {
+            submit(controller, Flow.HISTORY);
+        }
+        started.forEach(write -> write.complete("ok"));
+
+        assertThat(controller.limit()).isGreaterThan(4.9).isLessThan(5.0);
+        assertThat(controller.inFlight()).isZero();
+    }
+
+    @Test
+    void throttleCutsTheLimitOncePerRoundOfWrites() {
+        WriteRateController controller = controller(8, 10);
+
+        for (int i = 0; i < 8; i++) {
+            submit(controller, Flow.HISTORY);
+        }
+        // All eight went out before the cut, so only the first throttle may lower the limit
+        started.forEach(write -> write.completeExceptionally(ProvisionedThroughputExceededException.builder().build()));
+
+        assertThat(controller.limit()).isEqualTo(4.0);
+    }
+
+    @Test
+    void limitNeverDropsBelowTheMinimum() {
+        WriteRateController controller = controller(1, 10);
+
+        for (int round = 0; round < 3; round++) {
+            submit(controller, Flow.HISTORY);
+            started.get(round).completeExceptionally(ProvisionedThroughputExceededException.builder().build());
+        }
+
+        assertThat(controller.limit()).isEqualTo(1.0);
+    }
+
+    @Test
+    void writesOverTheLimitWaitAndStartAsSlotsFree() {
+        WriteRateController controller = controller(2, 10);
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(submit(controller, Flow.HISTORY));
+        }
+        assertThat(started).hasSize(2);
+        assertThat(controller.queued(Flow.HISTORY)).isEqualTo(3);
+
+        // The success raises the limit to 2.5, so two queued writes take the freed capacity
+        started.get(0).complete("ok");
+        assertThat(started).hasSize(4);
+        assertThat(results.get(0)).isCompletedWithValue("ok");
+        assertThat(controller.queued(Flow.HISTORY)).isEqualTo(1);
+        assertThat(results.get(4)).isNotDone();
+    }
+
+    @Test
+    void fullQueueRejectsOnlyItsOwnFlow() {
+        WriteRateController controller = controller(1, 2);
+
+        submit(controller, Flow.HISTORY);
+        submit(controller, Flow.HISTORY);
+        submit(controller, Flow.HISTORY);
+        CompletableFuture<String> overflow = submit(controller, Flow.HISTORY);
+        CompletableFuture<String> purge = submit(controller, Flow.PURGE);
+
+        assertThat(overflow).isCompletedExceptionally();
+        assertThatThrownBy(overflow::join).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(WriteRateController.isRejected(overflow.handle((value, error) -> error).join())).isTrue();
+        assertThat(purge).isNotDone();
+        assertThat(controller.queued(Flow.PURGE)).isEqualTo(1);
+    }
+
+    @Test
+    void freedSlotsGoToTheFlowsInTurn() {
+        WriteRateController controller = controller(1, 10);
+
+        List<Flow> order = new ArrayList<>();
+        submit(controller, Flow.HISTORY);
+        for (int i = 0; i < 3; i++) {
+            submit(controller, Flow.HISTORY).thenRun(() -> order.add(Flow.HISTORY));
+        }
+        submit(controller, Flow.PURGE).thenRun(() -> order.add(Flow.PURGE));
+
+        // Complete each write as it starts
+        for (int i = 0; i < started.size(); i++) {
+            started.get(i).complete("ok");
+        }
+
+        assertThat(order).hasSize(4);
+        assertThat(order.indexOf(Flow.PURGE)).isLessThan(2);
+    }
+
+    private CompletableFuture<String> submit(WriteRateController controller, Flow flow) {
+        return controller.submit(flow, () -> {
+            CompletableFuture<String> write = new CompletableFuture<>();
+            started.add(write);
+            return write;
+        });
+    }
+
+    private static WriteRateController controller(int initialConcurrency, int maxQueued) {
+        WriteRateController controller = new WriteRateController(mock(CloudWatchService.class));
+        ReflectionTestUtils.setField(controller, "initialConcurrency", initialConcurrency);
+        ReflectionTestUtils.setField(controller, "minConcurrency", 1);
+        ReflectionTestUtils.setField(controller, "maxConcurrency", 64);
+        ReflectionTestUtils.setField(controller, "decreaseFactor", 0.5);
+        ReflectionTestUtils.setField(controller, "maxQueued", maxQueued);
+        return controller;
+    }
+}
@@ -0,0 +1,114 @@
+package com.awscapstone.crypto_tracker_backend.source;
+
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import com.awscapstone.crypto_tracker_backend.service.CloudWatchService;
+import com.awscapstone.crypto_tracker_backend.service.CoinGeckoMarketsParser;
+import com.awscapstone.crypto_tracker_backend.source.ResponseRecording.Entry;
+import com.awscapstone.crypto_tracker_backend.source.ResponseRecording.Kind;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ReplayPriceSourceTest {
+
+    @TempDir
+    Path directory;
+
+    private ReplayPriceSource replay;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (replay != null) {
+            replay.shutdown();
+        }
+    }
+
+    @Test
+    void marketPagesOfATickFormOneSnapshotAndLookupsNeverAdvance() throws IOException {
+        Path file = directory.resolve("upstream-20240101-00" + ResponseRecording.FILE_SUFFIX);
+        ResponseRecording.append(file, entry(1000, Kind.MARKETS, "page 1", coin("bitcoin", "btc", 1, 100)));
+        ResponseRecording.append(file, entry(1000, Kind.MARKETS, "page 2", coin("ethereum", "eth", 2, 10)));
+        ResponseRecording.append(file, entry(1000, Kind.IDS, "ids", coin("foo", "foo", 3000, 1)));
+        ResponseRecording.append(file, entry(2000, Kind.MARKETS, "page 1", coin("bitcoin", "btc", 1, 101)));
+        replay = replay();
+
+        // Nothing has been replayed yet, and a lookup must not start the replay
+        assertThat(replay.fetchBySymbols(List.of("BTC"))).isEmpty();
+
+        List<CryptoPrice> first = replay.fetchPrices();
+        assertThat(first).extracting(CryptoPrice::getCoinId).containsExactly("bitcoin", "ethereum");
+
+        assertThat(replay.fetchByIds(List.of("foo"))).extracting(CryptoPrice::getCoinId).containsExactly("foo");
+        assertThat(replay.fetchBySymbols(List.of("btc", "FOO"))).extracting(CryptoPrice::getCoinId).containsExactlyInAnyOrder("bitcoin", "foo");
+
+        List<CryptoPrice> second = replay.fetchPrices();
+        assertThat(second).hasSize(1);
+        assertThat(second.get(0).getCurrentPrice()).isEqualByComparingTo("101");
+    }
+
+    @Test
+    void repeatedRankRangeStartsTheNextTick() throws IOException {
+        Path file = directory.resolve("upstream-20240101-00" + ResponseRecording.FILE_SUFFIX);
+        ResponseRecording.append(file, entry(1000, Kind.MARKETS, "page 1", coin("bitcoin", "btc", 1, 100)));
+        ResponseRecording.append(file, entry(1000, Kind.MARKETS, "page 2", coin("ethereum", "eth", 2, 10)));
+        ResponseRecording.append(file, entry(2000, Kind.MARKETS, "page 1", coin("bitcoin", "btc", 1, 101)));
+        replay = replay();
+
+        assertThat(replay.fetchRankRange(1, 1)).extracting(price -> price.getCurrentPrice().intValue()).containsExactly(100);
+        assertThat(replay.fetchRankRange(2, 2)).extracting(CryptoPrice::getCoinId).containsExactly("ethereum");
+        assertThat(replay.fetchRankRange(1, 1)).extracting(price -> price.getCurrentPrice().intValue()).containsExactly(101);
+    }
+
+    @Test
+    void legacyRecordsInferTheirKindAndLookupOnlyTicksAreSkipped() throws IOException {
+        Path file = directory.resolve("upstream-20240101-00" + ResponseRecording.FILE_SUFFIX);
+        appendLegacy(file, 1000, "page 1", coin("bitcoin", "btc", 1, 100));
+        appendLegacy(file, 2000, "ids", coin("foo", "foo", 3000, 1));
+        appendLegacy(file, 3000, "page 1", coin("bitcoin", "btc", 1, 102));
+        replay = replay();
+
+        assertThat(replay.fetchPrices()).extracting(CryptoPrice::getCoinId).containsExactly("bitcoin");
+        List<CryptoPrice> next = replay.fetchPrices();
+        assertThat(next).extracting(CryptoPrice::getCoinId).containsExactly("bitcoin");
+        assertThat(next.get(0).getCurrentPrice()).isEqualByComparingTo("102");
+    }
+
+    private ReplayPriceSource replay() {
+        return new ReplayPriceSource(new CoinGeckoMarketsParser(), mock(CloudWatchService.class), directory.toString(), 0, false);
+    }
+
+    private static Entry entry(long tick, Kind kind, String description, String body) {
+        return new Entry(tick, tick, kind, description, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // The record layout written before requests were tagged with their kind
+    private static void appendLegacy(Path file, long tick, String description, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND))))) {
+            out.writeLong(tick);
+            out.writeLong(tick);
+            out.writeUTF(description);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String coin(String id, String symbol, int rank, double price) {
+        return "[{\"id\":\"" + id + "\",\"symbol\":\"" + symbol + "\",\"name\":\"" + id + "\",\"current_price\":" + price
+                + ",\"market_cap_rank\":" + rank + "}]";
+    }
+}
@@ -0,0 +1,50 @@
+package com.awscapstone.crypto_tracker_backend.source;
+
+import com.awscapstone.crypto_tracker_backend.model.CryptoPrice;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SyntheticPriceSourceTest {
+
+    @Test
+    void sameSeedReplaysTheSameMarketAndClock() {
+        List<CryptoPrice> first = source(7).fetchPrices();
+        List<CryptoPrice> second = source(7).fetchPrices();
+
+        assertThat(second).usingRecursiveFieldByFieldElementComparator().isEqualTo(first);
+        assertThat(source(8).fetchPrices().get(0).getLastUpdated()).isNotEqualTo(first.get(0).getLastUpdated());
+    }
+
+    @Test
+    void rankRangesOfOneTickShareItsClock() {
+        SyntheticPriceSource source = source(7);
+
+        CryptoPrice top = source.fetchRankRange(1, 10).get(0);
+        CryptoPrice lower = source.fetchRankRange(11, 20).get(0);
+        assertThat(lower.getLastUpdated()).isEqualTo(top.getLastUpdated());
+
+        // Asking for the first range again starts the next tick, 30 simulated seconds on
+        CryptoPrice next = source.fetchRankRange(1, 10).get(0);
+        assertThat(next.getLastUpdated()).isEqualTo(top.getLastUpdated().plusSeconds(30));
+    }
+
+    @Test
+    void lookupsReadTheCurrentTickWithoutAdvancingIt() {
+        SyntheticPriceSource source = source(7);
+        CryptoPrice ranked = source.fetchRankRange(1, 50).get(17);
+
+        List<CryptoPrice> byId = source.fetchByIds(List.of(ranked.getCoinId(), "synthetic-x", "synthetic-0042", "bitcoin"));
+        List<CryptoPrice> bySymbol = source.fetchBySymbols(List.of(ranked.getSymbol().toLowerCase()));
+
+        assertThat(byId).singleElement().usingRecursiveComparison().isEqualTo(ranked);
+        assertThat(bySymbol).singleElement().usingRecursiveComparison().isEqualTo(ranked);
+        assertThat(source.fetchRankRange(51, 60).get(0).getLastUpdated()).isEqualTo(ranked.getLastUpdated());
+    }
+
+    private static SyntheticPriceSource source(long seed) {
+        return new SyntheticPriceSource(seed, 100, 30_000, 0.001, 6, 20, 16);
+    }
+}